@@ -0,0 +1,396 @@
+package com.flechazo.jinchancygale.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Generates the config registry at build time from {@code @ConfigModuleMarker} modules,
+ * and from classes that implement {@code ConfigModule} directly without the marker, as the runtime scan finds both.
+ * <p>
+ * For every module a {@code <Module>_ConfigDefinitions} class is written next to it, holding the
+ * definitions and direct getter/setter lambdas of its fields. {@code GeneratedConfigRegistry} collects
+ * them together with the schema hash and key table used by the packet codec.
+ * Modules marked for one physical side are only defined on that side, so their classes are never loaded on the other.
+ * Invalid ranges and unsupported field types fail the build.
+ */
+// every root element is needed to find modules without the marker
+@SupportedAnnotationTypes("*")
+@SupportedSourceVersion(SourceVersion.RELEASE_17)
+public class ConfigModuleProcessor extends AbstractProcessor {
+    static final String CONFIG_PACKAGE = "com.flechazo.jinchancygale.config";
+    static final String MARKER = CONFIG_PACKAGE + ".flag.ConfigModuleMarker";
+    private static final String CONFIG_MODULE = CONFIG_PACKAGE + ".ConfigModule";
+    private static final String CONFIG_INFO = CONFIG_PACKAGE + ".flag.ConfigInfo";
+    private static final String RANGE_FLAG = CONFIG_PACKAGE + ".flag.RangeFlag";
+    private static final String DO_NOT_LOAD = CONFIG_PACKAGE + ".flag.DoNotLoad";
+    private static final String DO_NOT_SYNC = CONFIG_PACKAGE + ".flag.DoNotSync";
+    private static final String GENERATED_PACKAGE = CONFIG_PACKAGE + ".generated";
+    private static final String GENERATED_NAME = "GeneratedConfigRegistry";
+    private static final String DEFINITIONS_SUFFIX = "_ConfigDefinitions";
+
+    private static final String CLIENT = "CLIENT";
+    private static final String DEDICATED_SERVER = "DEDICATED_SERVER";
+
+    // definition class names, mapped to the only side they load on or null for both
+    private final Map<String, String> definitionClasses = new LinkedHashMap<>();
+    private final Map<String, String> typesByKey = new TreeMap<>();
+    // keys of one-sided modules, kept out of the schema hash
+    private final Map<String, String> localTypesByKey = new TreeMap<>();
+    private boolean failed = false;
+    private boolean generated = false;
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated) return false;
+
+        TypeElement marker = processingEnv.getElementUtils().getTypeElement(MARKER);
+        Set<? extends Element> marked = marker != null ? roundEnv.getElementsAnnotatedWith(marker) : Set.of();
+        for (Element element : marked) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@ConfigModuleMarker can only be used on classes");
+                continue;
+            }
+            processModule((TypeElement) element, annotation(element, MARKER));
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            findUnmarked(type, marked);
+        }
+
+        generated = true;
+        if (!failed) writeRegistry();
+        return false;
+    }
+
+    // classes implementing ConfigModule directly, like the scan in ClassLoaderUtil#findClassNames
+    private void findUnmarked(TypeElement type, Set<? extends Element> marked) {
+        if (type.getKind() == ElementKind.CLASS && !marked.contains(type) && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            TypeMirror configModule = processingEnv.getElementUtils().getTypeElement(CONFIG_MODULE).asType();
+            for (TypeMirror implemented : type.getInterfaces()) {
+                if (processingEnv.getTypeUtils().isSameType(processingEnv.getTypeUtils().erasure(implemented), configModule)) {
+                    processModule(type, null);
+                    break;
+                }
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            findUnmarked(nested, marked);
+        }
+    }
+
+    /**
+     * @param marker The module's {@code @ConfigModuleMarker}, or null if it only implements the interface
+     */
+    private void processModule(TypeElement module, AnnotationMirror marker) {
+        TypeMirror configModule = processingEnv.getElementUtils().getTypeElement(CONFIG_MODULE).asType();
+        if (!processingEnv.getTypeUtils().isAssignable(module.asType(), configModule)) {
+            error(module, "Config module must implement ConfigModule");
+            return;
+        }
+        if (module.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(module, "Config module must not be abstract");
+            return;
+        }
+        if (module.getNestingKind() != NestingKind.TOP_LEVEL) {
+            error(module, "Config module must be a top-level class");
+            return;
+        }
+        boolean hasConstructor = ElementFilter.constructorsIn(module.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE));
+        if (!hasConstructor) {
+            error(module, "Config module needs a non-private no-arg constructor");
+            return;
+        }
+
+        String side = side(module, marker);
+        if (side != null && side.isEmpty()) return; // loaded on neither side
+        String categories = categories(marker);
+        List<String> lines = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(module.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) continue;
+            AnnotationMirror configInfo = annotation(field, CONFIG_INFO);
+            if (configInfo == null || annotation(field, DO_NOT_LOAD) != null) continue;
+
+            String line = defineField(module, field, configInfo, categories, side != null);
+            if (line != null) lines.add(line);
+        }
+
+        writeDefinitions(module, side, lines);
+    }
+
+    /**
+     * @return The only side the module loads on, "" for none, or null for both
+     */
+    private String side(TypeElement module, AnnotationMirror marker) {
+        if (marker == null) return null;
+        Set<String> sides = new HashSet<>(List.of(CLIENT, DEDICATED_SERVER));
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : marker.getElementValues().entrySet()) {
+            if (!entry.getKey().getSimpleName().contentEquals("side")) continue;
+            sides.clear();
+            for (Object value : (List<?>) entry.getValue().getValue()) {
+                sides.add(((VariableElement) ((AnnotationValue) value).getValue()).getSimpleName().toString());
+            }
+        }
+        if (sides.size() == 2) return null;
+        if (sides.isEmpty()) processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Config module is loaded on no side", module);
+        return sides.isEmpty() ? "" : sides.iterator().next();
+    }
+
+    /**
+     * @return Java expression of the module's categories, so definitions carry them without reading the annotation at runtime;
+     *         the deprecated {@code ConfigModule#category()} when the marker declares none
+     */
+    private static String categories(AnnotationMirror marker) {
+        StringJoiner categories = new StringJoiner(", ", "List.of(", ")");
+        if (marker != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : marker.getElementValues().entrySet()) {
+                if (!entry.getKey().getSimpleName().contentEquals("category")) continue;
+                for (Object value : (List<?>) entry.getValue().getValue()) {
+                    categories.add(literal(String.valueOf(((AnnotationValue) value).getValue())));
+                }
+            }
+        }
+        return categories.length() > "List.of()".length() ? categories.toString() : "List.of(module.category())";
+    }
+
+    private String defineField(TypeElement module, VariableElement field, AnnotationMirror configInfo, String categories, boolean local) {
+        String name = field.getSimpleName().toString();
+        if (field.getModifiers().contains(Modifier.PRIVATE)) {
+            error(field, "Config field must not be private so the generated registry can access it");
+            return null;
+        }
+
+        TypeMirror type = field.asType();
+        String typeName;
+        String factory;
+        if (type.getKind() == TypeKind.BOOLEAN) {
+            typeName = "boolean";
+            factory = "ofBoolean";
+        } else if (type.getKind() == TypeKind.INT) {
+            typeName = "int";
+            factory = "ofInt";
+        } else if (type.getKind() == TypeKind.LONG) {
+            typeName = "long";
+            factory = "ofLong";
+        } else if (type.getKind() == TypeKind.DOUBLE) {
+            typeName = "double";
+            factory = "ofDouble";
+        } else if (type.toString().equals("java.lang.String")) {
+            typeName = "java.lang.String";
+            factory = null;
+        } else {
+            error(field, "Unsupported config field type " + type + ", expected boolean, int, long, double or String");
+            return null;
+        }
+
+        String min = "null";
+        String max = "null";
+        AnnotationMirror rangeFlag = annotation(field, RANGE_FLAG);
+        if (rangeFlag != null) {
+            String[] range = parseRange(field, typeName, value(rangeFlag, "min"), value(rangeFlag, "max"));
+            if (range == null) return null;
+            min = range[0];
+            max = range[1];
+        }
+
+        if (typesByKey.containsKey(name) || localTypesByKey.containsKey(name)) {
+            error(field, "Duplicate config key " + name);
+            return null;
+        }
+        (local ? localTypesByKey : typesByKey).put(name, typeName);
+
+        String owner = module.getSimpleName().toString();
+        String accessor = factory != null ?
+                "ConfigAccessor." + factory + "(" + literal(name) + ", () -> " + owner + "." + name + ", value -> " + owner + "." + name + " = value)" :
+                "ConfigAccessor.ofObject(" + literal(name) + ", String.class, () -> " + owner + "." + name + ", value -> " + owner + "." + name + " = (String) value)";
+        boolean sync = annotation(field, DO_NOT_SYNC) == null;
+        return "definitions.add(new ConfigDefinition(module, " + categories + ", " + literal(name) + ", " + literal(value(configInfo, "name")) + ", " +
+                literal(value(configInfo, "comment")) + ", " + (factory != null ? typeName : "String") + ".class, " +
+                min + ", " + max + ", " + sync + ", " + local + ",\n                " + accessor + "));";
+    }
+
+    private String[] parseRange(VariableElement field, String typeName, String min, String max) {
+        try {
+            switch (typeName) {
+                case "int" -> {
+                    int lo = Integer.parseInt(min), hi = Integer.parseInt(max);
+                    if (lo > hi) break;
+                    return new String[]{Integer.toString(lo), Integer.toString(hi)};
+                }
+                case "long" -> {
+                    long lo = Long.parseLong(min), hi = Long.parseLong(max);
+                    if (lo > hi) break;
+                    return new String[]{lo + "L", hi + "L"};
+                }
+                case "double" -> {
+                    double lo = Double.parseDouble(min), hi = Double.parseDouble(max);
+                    if (!Double.isFinite(lo) || !Double.isFinite(hi) || lo > hi) break;
+                    return new String[]{lo + "D", hi + "D"};
+                }
+                default -> {
+                    error(field, "@RangeFlag is only supported on int, long and double fields");
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            error(field, "Invalid @RangeFlag bounds [" + min + ", " + max + "] for " + typeName + ": " + e.getMessage());
+            return null;
+        }
+        error(field, "Invalid @RangeFlag bounds [" + min + ", " + max + "]: min must not be greater than max");
+        return null;
+    }
+
+    private void writeDefinitions(TypeElement module, String side, List<String> lines) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(module).getQualifiedName().toString();
+        String owner = module.getSimpleName().toString();
+        String className = owner + DEFINITIONS_SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        definitionClasses.put(qualifiedName, side);
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, module).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import " + CONFIG_PACKAGE + ".ConfigAccessor;");
+            out.println("import " + CONFIG_PACKAGE + ".ConfigDefinition;");
+            out.println();
+            out.println("import java.util.List;");
+            out.println();
+            out.println("/**");
+            out.println(" * Generated by ConfigModuleProcessor from {@link " + owner + "}, do not edit.");
+            out.println(" */");
+            out.println("public final class " + className + " {");
+            out.println("    private " + className + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    @SuppressWarnings(\"deprecation\")");
+            out.println("    public static void define(List<ConfigDefinition> definitions) {");
+            out.println("        " + owner + " module = new " + owner + "();");
+            for (String line : lines) {
+                out.println("        " + line);
+            }
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            error(module, "Failed to write config definitions: " + e.getMessage());
+        }
+    }
+
+    private void writeRegistry() {
+        // same hash as ConfigSchema#hash: shared keys in order, each followed by its type name
+        int hash = 1;
+        for (Map.Entry<String, String> entry : typesByKey.entrySet()) {
+            hash = 31 * hash + entry.getKey().hashCode();
+            hash = 31 * hash + entry.getValue().hashCode();
+        }
+
+        String qualifiedName = GENERATED_PACKAGE + "." + GENERATED_NAME;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName).openWriter())) {
+            out.println("package " + GENERATED_PACKAGE + ";");
+            out.println();
+            out.println("import " + CONFIG_PACKAGE + ".ConfigDefinition;");
+            out.println("import " + CONFIG_PACKAGE + ".ConfigRegistry;");
+            out.println("import net.minecraftforge.fml.loading.FMLEnvironment;");
+            out.println();
+            out.println("import java.util.ArrayList;");
+            out.println("import java.util.List;");
+            out.println();
+            out.println("/**");
+            out.println(" * Generated by ConfigModuleProcessor, do not edit.");
+            out.println(" */");
+            out.println("public final class " + GENERATED_NAME + " implements ConfigRegistry {");
+            out.println("    public static final int SCHEMA_HASH = " + hash + ";");
+            out.println("    // keys by packet codec id");
+            out.println("    public static final String[] KEYS = {");
+            for (String key : typesByKey.keySet()) {
+                out.println("            " + literal(key) + ",");
+            }
+            out.println("    };");
+            out.println("    // keys of one-sided modules, ids follow the shared keys on the side that has them");
+            out.println("    public static final String[] LOCAL_KEYS = {");
+            for (String key : localTypesByKey.keySet()) {
+                out.println("            " + literal(key) + ",");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    @Override");
+            out.println("    public List<ConfigDefinition> definitions() {");
+            out.println("        List<ConfigDefinition> definitions = new ArrayList<>(" + (typesByKey.size() + localTypesByKey.size()) + ");");
+            for (Map.Entry<String, String> definitionClass : definitionClasses.entrySet()) {
+                if (definitionClass.getValue() == null) {
+                    out.println("        " + definitionClass.getKey() + ".define(definitions);");
+                } else {
+                    String check = definitionClass.getValue().equals(CLIENT) ? "isClient" : "isDedicatedServer";
+                    out.println("        if (FMLEnvironment.dist." + check + "()) " + definitionClass.getKey() + ".define(definitions);");
+                }
+            }
+            out.println("        return definitions;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public int schemaHash() {");
+            out.println("        return SCHEMA_HASH;");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write config registry: " + e.getMessage());
+        }
+    }
+
+    private static AnnotationMirror annotation(Element element, String type) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String value(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "";
+    }
+
+    private static String literal(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        failed = true;
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
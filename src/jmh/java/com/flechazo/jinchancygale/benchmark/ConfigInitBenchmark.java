@@ -0,0 +1,31 @@
+package com.flechazo.jinchancygale.benchmark;
+
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.SyntheticConfigRegistry;
+import net.minecraftforge.common.ForgeConfigSpec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spec and schema building in {@link ConfigManager#init}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigInitBenchmark {
+    @Param({"10", "1000", "50000"})
+    public int keys;
+
+    private SyntheticConfigRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registry = new SyntheticConfigRegistry(keys);
+    }
+
+    @Benchmark
+    public ForgeConfigSpec init() {
+        return ConfigManager.init(registry);
+    }
+}
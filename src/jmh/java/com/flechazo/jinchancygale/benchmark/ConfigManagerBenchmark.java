@@ -0,0 +1,85 @@
+package com.flechazo.jinchancygale.benchmark;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigSnapshot;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.config.SyntheticConfigRegistry;
+import com.flechazo.jinchancygale.config.value.IntConfig;
+import net.minecraftforge.common.ForgeConfigSpec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config load, sync and read paths over synthetic schemas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigManagerBenchmark {
+    @Param({"10", "1000", "50000"})
+    public int keys;
+
+    private SyntheticConfigRegistry registry;
+    // two full value sets differing in every slot, applied alternately so every sync changes all keys
+    private ConfigValues first;
+    private ConfigValues second;
+    private boolean flip;
+    private String key;
+    private IntConfig handle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registry = new SyntheticConfigRegistry(keys);
+        ForgeConfigSpec spec = ConfigManager.init(registry);
+        spec.acceptConfig(CommentedConfig.inMemory());
+        ConfigManager.load();
+
+        first = ConfigManager.createSyncData(true);
+        second = first.copy();
+        for (int id = second.nextId(0); id >= 0; id = second.nextId(id + 1)) {
+            Object value = second.get(id);
+            if (value instanceof Boolean b) second.setBoolean(id, !b);
+            else if (value instanceof Integer i) second.setInt(id, (i + 1) % 1000);
+            else if (value instanceof Double d) second.setDouble(id, (d + 1) % 1000);
+            else if (value instanceof Long l) second.setLong(id, l + 1);
+            else second.setString(id, value + "'");
+        }
+        key = SyntheticConfigRegistry.key(keys / 2 / 5 * 5); // an int key in the middle of the schema
+        handle = IntConfig.of(key);
+    }
+
+    @Benchmark
+    public void load() {
+        ConfigManager.load();
+    }
+
+    @Benchmark
+    public ConfigSnapshot syncValue() {
+        flip = !flip;
+        return ConfigManager.syncValue(flip ? second : first, false);
+    }
+
+    @Benchmark
+    public ConfigValues createSyncData() {
+        return ConfigManager.createSyncData(false);
+    }
+
+    @Benchmark
+    public Object getField() {
+        return ConfigManager.getEntry(key).accessor().get();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int typedHandle() {
+        return handle.getAsInt();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object tryParse() {
+        return ConfigManager.tryParse(int.class, "42");
+    }
+}
@@ -0,0 +1,91 @@
+package com.flechazo.jinchancygale.benchmark;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.config.SyntheticConfigRegistry;
+import com.flechazo.jinchancygale.network.module.ConfigCodec;
+import com.flechazo.jinchancygale.network.module.ConfigPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire encoding of a full config sync, derived record codec against the hand-written layout it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigPacketBenchmark {
+    @Param({"10", "1000", "50000"})
+    public int keys;
+
+    private ConfigPacket packet;
+    private FriendlyByteBuf out;
+    private FriendlyByteBuf in;
+    private FriendlyByteBuf handIn;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ConfigManager.init(new SyntheticConfigRegistry(keys)).acceptConfig(CommentedConfig.inMemory());
+        ConfigManager.load();
+        packet = ConfigPacket.createForSync(ConfigManager.createSyncData(true), ConfigManager.snapshot().revision());
+
+        out = new FriendlyByteBuf(Unpooled.buffer());
+        ConfigPacket.encode(packet, out);
+        in = new FriendlyByteBuf(Unpooled.copiedBuffer(out));
+        out.clear();
+        handEncode(packet, out);
+        handIn = new FriendlyByteBuf(Unpooled.copiedBuffer(out));
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        out.clear();
+        ConfigPacket.encode(packet, out);
+        return out;
+    }
+
+    @Benchmark
+    public ConfigPacket decode() {
+        in.readerIndex(0);
+        return ConfigPacket.decode(in);
+    }
+
+    @Benchmark
+    public ByteBuf handWrittenEncode() {
+        out.clear();
+        handEncode(packet, out);
+        return out;
+    }
+
+    @Benchmark
+    public ConfigPacket handWrittenDecode() {
+        handIn.readerIndex(0);
+        return handDecode(handIn);
+    }
+
+    // layout of the former hand-written codec, for sync packets
+    private static void handEncode(ConfigPacket packet, FriendlyByteBuf buf) {
+        buf.writeVarInt(packet.type());
+        buf.writeBoolean(packet.full());
+        buf.writeVarLong(packet.baseRevision() + 1);
+        buf.writeVarLong(packet.revision() + 1);
+        ConfigCodec.encode(buf, packet.configData());
+    }
+
+    private static ConfigPacket handDecode(FriendlyByteBuf buf) {
+        int type = buf.readVarInt();
+        boolean full = buf.readBoolean();
+        long baseRevision = buf.readVarLong() - 1;
+        long revision = buf.readVarLong() - 1;
+        ConfigValues values = new ConfigValues(ConfigManager.schema());
+        ConfigCodec.decode(buf, values);
+        return new ConfigPacket(type, full, baseRevision, revision, new int[0], new BitSet(), List.of(), values);
+    }
+}
@@ -2,6 +2,7 @@ package com.flechazo.jinchancygale;
 
 import com.flechazo.jinchancygale.config.ConfigManager;
 import com.flechazo.jinchancygale.event.EventManager;
+import com.flechazo.jinchancygale.network.NetworkHandler;
 import com.mojang.logging.LogUtils;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
@@ -15,5 +16,6 @@ public class JinchancyGale {
     public JinchancyGale(FMLJavaModLoadingContext context) {
         EventManager.register();
         ConfigManager.register(context);
+        NetworkHandler.register(context.getModEventBus());
     }
 }
@@ -0,0 +1,163 @@
+package com.flechazo.jinchancygale.client;
+
+import com.flechazo.jinchancygale.config.ConfigDigest;
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.network.NetworkHandler;
+import com.flechazo.jinchancygale.network.module.ConfigCodec;
+import com.flechazo.jinchancygale.network.module.ConfigPacket;
+import io.netty.buffer.Unpooled;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Locale;
+
+import static com.flechazo.jinchancygale.JinchancyGale.MODID;
+
+/**
+ * Client-side copy of the server config, kept for the session so syncs only carry changed keys.
+ * The copy is also saved to disk per server and schema, so on the next join the client only sends a digest
+ * and the server answers with the buckets that differ, usually none.
+ */
+public class ClientConfigCache {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static ConfigValues values = null;
+    private static long revision = -1;
+    // cache file of the current server, null in singleplayer
+    private static Path file = null;
+    // values read from disk on join, waiting for the server to confirm them
+    private static ConfigValues stored = null;
+
+    public static long revision() {
+        return revision;
+    }
+
+    /**
+     * Apply a sync from the server.
+     *
+     * @param full         Whether the data is a complete snapshot
+     * @param baseRevision Revision the delta was computed against
+     * @param newRevision  Revision after applying the data
+     * @param data         Changed (or all) values
+     * @return Copy of the cached values, or null if the delta does not apply to the cached revision
+     */
+    public static ConfigValues apply(boolean full, long baseRevision, long newRevision, ConfigValues data) {
+        if (full) {
+            values = new ConfigValues(ConfigManager.schema());
+        } else if (values == null || baseRevision != revision) {
+            return null;
+        }
+        values.putAll(data);
+        revision = newRevision;
+        // an empty snapshot is filled on demand, keep the file until there is something to replace it with
+        if (!data.isEmpty()) save();
+        return values.copy();
+    }
+
+    /**
+     * Apply the server's answer to the join digest.
+     *
+     * @param full        Whether the data is a complete snapshot rather than the buckets that differ from the stored values
+     * @param newRevision Current server revision
+     * @param data        Differing (or all) values
+     * @return False if there are no stored values for the delta to apply to
+     */
+    public static boolean restore(boolean full, long newRevision, ConfigValues data) {
+        if (full) {
+            values = new ConfigValues(ConfigManager.schema());
+        } else if (stored != null) {
+            values = stored;
+        } else {
+            return false;
+        }
+        stored = null;
+        values.putAll(data);
+        revision = newRevision;
+        // a cache that is current or still to be fetched leaves the file as it is
+        if (!data.isEmpty()) save();
+        return true;
+    }
+
+    /**
+     * Add values fetched by the screen, if they are at least as new as the cached revision.
+     * Pushes arrive in order on the same connection, so a fetch answered at a newer revision is never older than the cache.
+     */
+    public static void merge(long newRevision, ConfigValues data) {
+        if (values == null || newRevision < revision) return;
+        values.putAll(data);
+        save();
+    }
+
+    public static void clear() {
+        values = null;
+        revision = -1;
+        stored = null;
+        file = null;
+    }
+
+    @SubscribeEvent
+    public static void onLoggingIn(ClientPlayerNetworkEvent.LoggingIn event) {
+        clear();
+        ServerData server = Minecraft.getInstance().getCurrentServer();
+        if (server == null || Minecraft.getInstance().isLocalServer()) return;
+        file = FMLPaths.GAMEDIR.get().resolve(MODID).resolve("server-cache")
+                .resolve(server.ip.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_")
+                        + "-" + Integer.toHexString(ConfigManager.schema().hash()) + ".bin");
+        stored = read(file);
+        NetworkHandler.sendToServer(stored == null ? ConfigPacket.hello(new int[0], new BitSet()) :
+                ConfigPacket.hello(ConfigDigest.of(stored), stored.presentIds()));
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        clear();
+        if (event.getConnection() != null) NetworkHandler.disconnected(event.getConnection());
+    }
+
+    private static ConfigValues read(Path path) {
+        if (!Files.exists(path)) return null;
+        try {
+            ConfigValues read = new ConfigValues(ConfigManager.schema());
+            return ConfigCodec.decode(new FriendlyByteBuf(Unpooled.wrappedBuffer(Files.readAllBytes(path))), read) ? read : null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to read cached server config {}", path, e);
+            return null;
+        }
+    }
+
+    private static void save() {
+        if (file == null || values == null) return;
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ConfigCodec.encode(buf, values);
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        Path path = file;
+        Util.ioPool().execute(() -> {
+            try {
+                Files.createDirectories(path.getParent());
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                Files.write(tmp, bytes);
+                try {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to save cached server config {}", path, e);
+            }
+        });
+    }
+}
@@ -1,19 +1,17 @@
 package com.flechazo.jinchancygale.client.gui;
 
+import com.flechazo.jinchancygale.config.ConfigEntry;
 import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigValues;
 import com.flechazo.jinchancygale.network.NetworkHandler;
 import com.flechazo.jinchancygale.network.module.ConfigPacket;
-import com.mojang.datafixers.util.Pair;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.*;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
-import net.minecraftforge.client.gui.widget.ForgeSlider;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class ConfigScreen extends Screen {
     // UI layout constants
@@ -25,80 +23,121 @@ public class ConfigScreen extends Screen {
     private static final int BUTTON_HEIGHT = 20;
     private static final int PANEL_TOP = 30;
     private static final int PANEL_BOTTOM_MARGIN = 50;
-    // Stores widget references for current page
-    private final Map<String, AbstractWidget> configWidgets = new HashMap<>();
-    // Stores modified configuration values across pages
-    private final Map<String, Object> modifiedConfigCache = new HashMap<>();
-    // Original configuration entries
-    private final List<Map.Entry<String, Object>> configEntries;
+    private static final int SCROLLBAR_WIDTH = 4;
+    private static final int SEARCH_WIDTH = 150;
+    private static final int FILTER_WIDTH = 90;
+    // Reusable rows for the visible part of the list
+    private final List<Row> rows = new ArrayList<>();
+    // Stores modified configuration values across scrolling
+    private final ConfigValues modifiedConfigCache;
+    // Schema ids of all entries, ascending; an entry's position is its index here
+    private final int[] configIds;
+    // Formatted labels by position
+    private final Component[] labels;
+    private final ConfigSearchIndex searchIndex;
+    // Positions whose original value differs from the default
+    private final BitSet nonDefault = new BitSet();
+    // Positions passing the search and filters, in list order
+    private int[] visible;
+    private String query = "";
+    // "" for all, otherwise "module:" or "category:" followed by the name
+    private String scope = "";
+    private boolean modifiedOnly = false;
+    private boolean nonDefaultOnly = false;
+    // Original configuration values
+    private final ConfigValues originalValues;
     private final boolean isClient;
+    // Scopes already requested from the server, values arrive in a fetch response
+    private final Set<String> requested = new HashSet<>();
     private ConfigScreen origin = null;
-    // Pagination variables
-    private int currentPage = 0;
-    private int itemsPerPage = 0;
-    private int totalPages = 0;
+    // Scrolling variables
+    private int firstRow = 0;
+    private int visibleRows = 0;
     private int panelHeight = 0;
+    private StringWidget positionWidget;
 
-    public ConfigScreen(Map<String, Object> serverConfig, boolean isClient) {
+    /**
+     * @param serverConfig Values to edit. On the server screen they may be sparse:
+     *                     every shared key is listed and missing values are fetched when shown
+     * @param isClient     Whether the screen edits the local config
+     */
+    public ConfigScreen(ConfigValues serverConfig, boolean isClient) {
         super(Component.literal("JinChancy Gale Config"));
-        this.configEntries = new ArrayList<>(serverConfig.entrySet());
+        if (isClient) {
+            this.configIds = new int[serverConfig.size()];
+            for (int id = serverConfig.nextId(0), i = 0; id >= 0; id = serverConfig.nextId(id + 1)) {
+                configIds[i++] = id;
+            }
+        } else {
+            this.configIds = serverConfig.schema().entries().stream()
+                    .filter(entry -> !entry.local()).mapToInt(ConfigEntry::id).toArray();
+        }
+        this.originalValues = serverConfig.copy();
+        this.modifiedConfigCache = new ConfigValues(serverConfig.schema());
         this.isClient = isClient;
+
+        this.labels = new Component[configIds.length];
+        List<ConfigEntry> entries = new ArrayList<>(configIds.length);
+        List<String> labelTexts = new ArrayList<>(configIds.length);
+        for (int i = 0; i < configIds.length; i++) {
+            ConfigEntry entry = serverConfig.schema().get(configIds[i]);
+            String label = formatConfigKey(entry.name());
+            entries.add(entry);
+            labelTexts.add(label);
+            labels[i] = Component.literal(label);
+        }
+        this.searchIndex = new ConfigSearchIndex(entries, labelTexts);
+        updateNonDefault(serverConfig);
+        this.visible = searchIndex.search("").stream().toArray();
     }
 
     @Override
     protected void init() {
         super.init();
+        // Keep edits of the old rows when resizing
+        saveRows();
+        rows.clear();
 
         // Calculate panel height based on screen size
         panelHeight = height - PANEL_TOP - PANEL_BOTTOM_MARGIN;
 
-        // Calculate how many items can fit per page
-        itemsPerPage = Math.max(1, panelHeight / ITEM_HEIGHT);
-        totalPages = (int) Math.ceil((double) configEntries.size() / itemsPerPage);
+        // Calculate how many rows fit in the panel
+        visibleRows = Math.max(1, panelHeight / ITEM_HEIGHT);
 
-        // Create page navigation buttons
+        // Create navigation buttons
         createNavigationButtons();
+        createFilterWidgets();
 
-        // Create config widgets for current page
-        createPageWidgets();
+        // Create the row pool, rows stay in place and are rebound while scrolling
+        int controlX = MARGIN + LABEL_WIDTH + 10;
+        for (int i = 0; i < Math.min(visibleRows, configIds.length); i++) {
+            rows.add(new Row(controlX, PANEL_TOP + i * ITEM_HEIGHT));
+        }
+        scrollTo(firstRow);
     }
 
     private void createNavigationButtons() {
-        // Previous page button
+        // Page up button
         addRenderableWidget(Button.builder(
                         Component.translatable("config.jinchancy_gale.prev"),
-                        button -> {
-                            if (currentPage > 0) {
-                                saveCurrentPageChanges();
-                                currentPage--;
-                                clearWidgets();
-                                init();
-                            }
-                        })
+                        button -> scrollTo(firstRow - visibleRows))
                 .bounds(width / 2 - 130, height - 30, BUTTON_WIDTH, BUTTON_HEIGHT)
                 .build());
 
-        // Page indicator
-        addRenderableWidget(new StringWidget(
+        // Position indicator
+        positionWidget = addRenderableWidget(new StringWidget(
                 width / 2 - 30,
                 height - 30,
                 60,
                 20,
-                Component.literal((currentPage + 1) + "/" + totalPages),
+                Component.empty(),
                 font
         ));
 
-        // Next page button
+        // Page down button
         addRenderableWidget(Button.builder(
                         Component.translatable("config.jinchancy_gale.next"),
-                        button -> {
-                            if (currentPage < totalPages - 1) {
-                                saveCurrentPageChanges();
-                                currentPage++;
-                                clearWidgets();
-                                init();
-                            }
-                        })
+                        button -> scrollTo(firstRow + visibleRows))
                 .bounds(width / 2 + 70, height - 30, BUTTON_WIDTH, BUTTON_HEIGHT)
                 .build());
 
@@ -117,11 +156,11 @@ public class ConfigScreen extends Screen {
                                 "config.jinchancy_gale.switch_to_server" :
                                 "config.jinchancy_gale.switch_to_client"),
                         button -> {
-                            saveCurrentPageChanges();
+                            saveRows();
                             if (origin != null) {
                                 Minecraft.getInstance().setScreen(origin);
                             } else {
-                                origin = new ConfigScreen(ConfigManager.createSyncData(true), true);
+                                origin = new ConfigScreen(ConfigManager.values().copy(), true);
                                 origin.origin = this;
                                 Minecraft.getInstance().setScreen(origin);
                             }
@@ -160,13 +199,93 @@ public class ConfigScreen extends Screen {
     }
 
 
+    private void createFilterWidgets() {
+        int x = MARGIN;
+        int y = 5;
+
+        // Search box, filters on each keystroke
+        EditBox searchBox = addRenderableWidget(new EditBox(font, x, y, SEARCH_WIDTH, 20, Component.translatable("config.jinchancy_gale.search")));
+        searchBox.setHint(Component.translatable("config.jinchancy_gale.search"));
+        searchBox.setValue(query);
+        searchBox.setResponder(text -> {
+            query = text;
+            applyFilter();
+        });
+        x += SEARCH_WIDTH + 5;
+
+        // Module or category scope
+        List<String> scopes = new ArrayList<>();
+        scopes.add("");
+        searchIndex.modules().forEach(module -> scopes.add("module:" + module));
+        searchIndex.categories().forEach(category -> scopes.add("category:" + category));
+        addRenderableWidget(CycleButton.<String>builder(value -> value.isEmpty() ?
+                        Component.translatable("config.jinchancy_gale.filter.all") :
+                        Component.literal(value.startsWith("category:") ? "#" + value.substring(9) : value.substring(7)))
+                .withValues(scopes)
+                .withInitialValue(scopes.contains(scope) ? scope : "")
+                .displayOnlyValue()
+                .create(x, y, FILTER_WIDTH, 20, Component.empty(), (button, value) -> {
+                    scope = value;
+                    applyFilter();
+                }));
+        x += FILTER_WIDTH + 5;
+
+        addRenderableWidget(CycleButton.onOffBuilder(modifiedOnly)
+                .create(x, y, FILTER_WIDTH, 20, Component.translatable("config.jinchancy_gale.filter.modified"), (button, value) -> {
+                    modifiedOnly = value;
+                    applyFilter();
+                }));
+        x += FILTER_WIDTH + 5;
+
+        addRenderableWidget(CycleButton.onOffBuilder(nonDefaultOnly)
+                .create(x, y, FILTER_WIDTH, 20, Component.translatable("config.jinchancy_gale.filter.non_default"), (button, value) -> {
+                    nonDefaultOnly = value;
+                    applyFilter();
+                }));
+    }
+
+    /**
+     * Recompute the visible positions from the index and scroll back to the top.
+     */
+    private void applyFilter() {
+        saveRows();
+        BitSet result = searchIndex.search(query);
+        if (scope.startsWith("module:")) {
+            result.and(searchIndex.module(scope.substring(7)));
+        } else if (scope.startsWith("category:")) {
+            result.and(searchIndex.category(scope.substring(9)));
+        }
+        if (modifiedOnly) {
+            BitSet modified = new BitSet(configIds.length);
+            for (int id = modifiedConfigCache.nextId(0); id >= 0; id = modifiedConfigCache.nextId(id + 1)) {
+                int position = Arrays.binarySearch(configIds, id);
+                if (position >= 0) modified.set(position);
+            }
+            result.and(modified);
+        }
+        if (nonDefaultOnly) result.and(nonDefault);
+        visible = result.stream().toArray();
+        firstRow = 0;
+        scrollTo(0);
+    }
+
+    // track which positions differ from the defaults, for the ids present in changed
+    private void updateNonDefault(ConfigValues changed) {
+        ConfigValues defaults = ConfigManager.defaultValues();
+        for (int id = changed.nextId(0); id >= 0; id = changed.nextId(id + 1)) {
+            int position = Arrays.binarySearch(configIds, id);
+            if (position >= 0) nonDefault.set(position, !originalValues.sameValue(id, defaults));
+        }
+    }
+
     private void resetToDefaults() {
         // clear cache
         modifiedConfigCache.clear();
 
         if (isClient) {
             // load default value from client
-            applyData(ConfigManager.defaultValues);
+            applyData(ConfigManager.defaultValues());
+            bindRows();
         } else {
             // send load default value request to server
             ConfigPacket packet = ConfigPacket.reSyncRequest();
@@ -174,158 +293,105 @@ public class ConfigScreen extends Screen {
         }
     }
 
-    private void createPageWidgets() {
-        // Calculate start and end indices for current page
-        int startIdx = currentPage * itemsPerPage;
-        int endIdx = Math.min(startIdx + itemsPerPage, configEntries.size());
-
-        // Create config items for current page
-        int yPos = PANEL_TOP;
-        for (int i = startIdx; i < endIdx; i++) {
-            Map.Entry<String, Object> entry = configEntries.get(i);
-            String key = entry.getKey();
-
-            // Use cached value if modified, otherwise use original value
-            Object value = modifiedConfigCache.containsKey(key) ?
-                    modifiedConfigCache.get(key) :
-                    entry.getValue();
-
-            // Add label
-            String label = formatConfigKey(key);
-            AbstractWidget labelWidget = new StringWidget(
-                    MARGIN,
-                    yPos,
-                    LABEL_WIDTH,
-                    font.lineHeight,
-                    Component.literal(label),
-                    font
-            );
-            addRenderableWidget(labelWidget);
-
-            // Create control widget based on value type
-            AbstractWidget controlWidget = createControlWidget(key, value, yPos);
-            addRenderableWidget(controlWidget);
-            configWidgets.put(key, controlWidget);
-
-            yPos += ITEM_HEIGHT;
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double delta) {
+        if (mouseY >= PANEL_TOP && mouseY < PANEL_TOP + visibleRows * ITEM_HEIGHT) {
+            scrollTo(firstRow - (int) Math.signum(delta));
+            return true;
         }
+        return super.mouseScrolled(mouseX, mouseY, delta);
     }
 
-    private AbstractWidget createControlWidget(String key, Object value, int yPos) {
-        int controlX = MARGIN + LABEL_WIDTH + 10;
-
-        if (value instanceof Boolean) {
-            return new Checkbox(
-                    controlX,
-                    yPos,
-                    CONTROL_WIDTH,
-                    20,
-                    Component.literal(""),
-                    (Boolean) value,
-                    true
-            );
-        } else if (value instanceof Integer || value instanceof Long) {
-            long min = 0;
-            long max = 10000;
-            Pair<Number, Number> range = ConfigManager.getRange(key);
-            if (range != null) {
-                min = range.getFirst().longValue();
-                max = range.getSecond().longValue();
-            }
-
-            return new ForgeSlider(
-                    controlX, yPos, CONTROL_WIDTH, 20,
-                    Component.literal(""), Component.literal(""),
-                    min, max, ((Number) value).longValue(), true
-            );
-        } else if (value instanceof Float || value instanceof Double) {
-            double min = 0;
-            double max = 10000;
-            Pair<Number, Number> range = ConfigManager.getRange(key);
-            if (range != null) {
-                min = range.getFirst().doubleValue();
-                max = range.getSecond().doubleValue();
-            }
-            return new ForgeSlider(
-                    controlX, yPos, CONTROL_WIDTH, 20,
-                    Component.literal(""), Component.literal(""),
-                    min, max, ((Number) value).doubleValue(),
-                    0.01, 2, true
-            );
-        } else if (value instanceof String) {
-            EditBox editBox = new EditBox(
-                    font,
-                    controlX,
-                    yPos,
-                    CONTROL_WIDTH,
-                    20,
-                    Component.literal("")
-            );
-            editBox.setValue((String) value);
-            return editBox;
-        } else {
-            return Button.builder(
-                            Component.literal("Unsupported"),
-                            button -> {
-                            }
-                    )
-                    .bounds(controlX, yPos, CONTROL_WIDTH, 20)
-                    .build();
+    /**
+     * Scroll so the given list index is the first visible row.
+     * Rows keep their widgets; only the ones whose entry changed are rebound.
+     */
+    private void scrollTo(int index) {
+        int target = Math.max(0, Math.min(index, visible.length - rows.size()));
+        if (target != firstRow) {
+            saveRows();
+            firstRow = target;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).bind(firstRow + i, false);
         }
+        int last = Math.min(firstRow + visibleRows, visible.length);
+        positionWidget.setMessage(Component.literal((visible.length == 0 ? 0 : firstRow + 1) + "-" + last + "/" + visible.length));
+        requestMissing();
     }
 
     /**
-     * Saves current page widget values to cache only if they differ from original
-     * Called before page navigation
+     * Ask the server for values of bound rows that have none yet:
+     * the whole scope when one is selected, otherwise the modules of those rows.
      */
-    private void saveCurrentPageChanges() {
-        for (Map.Entry<String, AbstractWidget> entry : configWidgets.entrySet()) {
-            String key = entry.getKey();
-            AbstractWidget widget = entry.getValue();
-            Object originalValue = getOriginalValue(key);
+    private void requestMissing() {
+        if (isClient) return;
+        List<String> scopes = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.position < 0 || originalValues.has(configIds[row.position])) continue;
+            String request = scope.isEmpty() ? "module:" + originalValues.schema().get(configIds[row.position]).module() : scope;
+            if (requested.add(request)) scopes.add(request);
+        }
+        if (!scopes.isEmpty()) NetworkHandler.sendToServer(ConfigPacket.fetch(scopes));
+    }
 
-            if (widget instanceof Checkbox checkbox) {
-                boolean currentValue = checkbox.selected();
-                if (originalValue instanceof Boolean && (Boolean) originalValue != currentValue) {
-                    modifiedConfigCache.put(key, currentValue);
-                }
-            } else if (widget instanceof ForgeSlider slider) {
-                Number currentValue = slider.getValue();
-                if (originalValue instanceof Number original) {
-                    if (Math.abs(original.doubleValue() - currentValue.doubleValue()) > 0.0001) {
-                        modifiedConfigCache.put(key, ConfigManager.tryParse(originalValue.getClass(), currentValue));
-                    }
-                }
-            } else if (widget instanceof EditBox editBox) {
-                String currentValue = editBox.getValue();
-                if (originalValue instanceof String && !originalValue.equals(currentValue)) {
-                    modifiedConfigCache.put(key, currentValue);
-                }
-            }
+    /**
+     * Rebind every visible row from the model, discarding unsaved widget state.
+     */
+    private void bindRows() {
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).bind(firstRow + i, true);
         }
     }
 
     /**
-     * Gets the original value for a configuration key
+     * Saves visible row values to cache only if they differ from original
+     * Called before rows are rebound to other entries
      */
-    private Object getOriginalValue(String key) {
-        for (Map.Entry<String, Object> entry : configEntries) {
-            if (entry.getKey().equals(key)) {
-                return entry.getValue();
+    private void saveRows() {
+        for (Row row : rows) {
+            row.save();
+        }
+    }
+
+    @Override
+    public void render(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick) {
+        super.render(guiGraphics, mouseX, mouseY, partialTick);
+        for (Row row : rows) {
+            if (row.position >= 0) {
+                // grey until the value has been fetched
+                int color = originalValues.has(configIds[row.position]) ? 0xFFFFFF : 0x808080;
+                guiGraphics.drawString(font, labels[row.position], MARGIN, row.y + (20 - font.lineHeight) / 2, color);
             }
         }
-        return null;
+        if (visible.length > visibleRows) {
+            int trackHeight = visibleRows * ITEM_HEIGHT;
+            int thumbHeight = Math.max(8, trackHeight * visibleRows / visible.length);
+            int thumbY = PANEL_TOP + (trackHeight - thumbHeight) * firstRow / (visible.length - visibleRows);
+            int x = MARGIN + LABEL_WIDTH + 10 + CONTROL_WIDTH + 6;
+            guiGraphics.fill(x, PANEL_TOP, x + SCROLLBAR_WIDTH, PANEL_TOP + trackHeight, 0x40FFFFFF);
+            guiGraphics.fill(x, thumbY, x + SCROLLBAR_WIDTH, thumbY + thumbHeight, 0xC0FFFFFF);
+        }
     }
 
-    private String formatConfigKey(String key) {
-        return key.replaceAll("([A-Z])", " $1")
-                .replaceAll("^\\s+", "")
-                .replaceAll("\\s+", " ");
+    // insert a space before each capital, without leading or repeated spaces
+    private static String formatConfigKey(String key) {
+        StringBuilder builder = new StringBuilder(key.length() + 8);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            boolean space = Character.isWhitespace(c);
+            if ((space || Character.isUpperCase(c)) &&
+                    !builder.isEmpty() && builder.charAt(builder.length() - 1) != ' ') {
+                builder.append(' ');
+            }
+            if (!space) builder.append(c);
+        }
+        return builder.toString();
     }
 
     private void saveConfig() {
-        // Save current page before final save
-        saveCurrentPageChanges();
+        // Save visible rows before final save
+        saveRows();
         if (isClient) {
             ConfigManager.syncValue(modifiedConfigCache, true);
         } else {
@@ -348,25 +414,156 @@ public class ConfigScreen extends Screen {
         }
     }
 
-    public void updateConfig(Map<String, Object> configData) {
+    public void updateConfig(ConfigValues configData) {
         applyData(configData);
-        clearWidgets();
-        init();
+        bindRows();
+    }
+
+    /**
+     * Replace original values with ones changed on or fetched from the server, keeping unsaved edits
+     */
+    public void updateOriginal(ConfigValues configData) {
+        if (isClient) return;
+        saveRows();
+        originalValues.putAll(configData);
+        for (int id = configData.nextId(0); id >= 0; id = configData.nextId(id + 1)) {
+            // a reset applied before the value was fetched may turn out to change nothing
+            if (modifiedConfigCache.has(id) && modifiedConfigCache.sameValue(id, originalValues)) modifiedConfigCache.remove(id);
+        }
+        updateNonDefault(configData);
+        bindRows();
     }
 
-    public void applyData(Map<String, Object> configData) {
-        configData.forEach((key, value) -> {
-            Object originalValue = getOriginalValue(key);
-            if (originalValue instanceof Boolean && value instanceof Boolean && originalValue != value) {
-                modifiedConfigCache.put(key, value);
-            } else if (originalValue instanceof Number && value instanceof Number) {
-                double original = ((Number) originalValue).doubleValue();
-                if (Math.abs(original - ((Number) value).doubleValue()) > 0.0001) {
-                    modifiedConfigCache.put(key, value);
+    /**
+     * Stage values as edits, e.g. the defaults on reset. Keys the server screen has not fetched yet are staged too,
+     * so a reset covers every listed key and not only the ones scrolled to.
+     */
+    public void applyData(ConfigValues configData) {
+        for (int id = configData.nextId(0); id >= 0; id = configData.nextId(id + 1)) {
+            if (originalValues.has(id) ? !originalValues.sameValue(id, configData) : Arrays.binarySearch(configIds, id) >= 0) {
+                modifiedConfigCache.copy(id, configData);
+            }
+        }
+    }
+
+    /**
+     * One visible line of the list. Holds a control for every value type and shows the one matching its entry.
+     */
+    private class Row {
+        private final int y;
+        private final Checkbox checkbox;
+        private final RangeSlider integerSlider;
+        private final RangeSlider decimalSlider;
+        private final EditBox editBox;
+        // position of the entry the row shows, -1 when unbound
+        private int position = -1;
+        // set by the responder, which also fires when bind sets the text
+        private boolean binding = false;
+        private boolean textEdited = false;
+
+        Row(int x, int y) {
+            this.y = y;
+            this.checkbox = addRenderableWidget(new Checkbox(x, y, CONTROL_WIDTH, 20, Component.literal(""), false, true));
+            this.integerSlider = addRenderableWidget(new RangeSlider(x, y, CONTROL_WIDTH, 20, 1, 0));
+            this.decimalSlider = addRenderableWidget(new RangeSlider(x, y, CONTROL_WIDTH, 20, 0.01, 2));
+            this.editBox = addRenderableWidget(new EditBox(font, x, y, CONTROL_WIDTH, 20, Component.literal("")));
+            // rule lists run far past the default 32 characters
+            editBox.setMaxLength(32767);
+            editBox.setResponder(text -> {
+                if (!binding) textEdited = true;
+            });
+        }
+
+        void bind(int index, boolean force) {
+            int position = index >= 0 && index < visible.length ? visible[index] : -1;
+            if (position == this.position && !force) return;
+            this.position = position;
+            checkbox.visible = integerSlider.visible = decimalSlider.visible = editBox.visible = false;
+            if (position < 0) return;
+
+            int id = configIds[position];
+            if (!originalValues.has(id)) return; // not fetched yet
+            ConfigEntry entry = originalValues.schema().get(id);
+            Class<?> type = entry.type();
+            // Use cached value if modified, otherwise use original value
+            ConfigValues values = modifiedConfigCache.has(id) ? modifiedConfigCache : originalValues;
+
+            if (type == boolean.class) {
+                if (checkbox.selected() != values.getBoolean(id)) checkbox.onPress();
+                checkbox.visible = true;
+            } else if ((type == int.class || type == long.class) && entry.hasRange()) {
+                integerSlider.bind(entry.min().longValue(), entry.max().longValue(), type == int.class ? values.getInt(id) : values.getLong(id));
+                integerSlider.visible = true;
+            } else if (type == double.class && entry.hasRange()) {
+                decimalSlider.bind(entry.min().doubleValue(), entry.max().doubleValue(), values.getDouble(id));
+                decimalSlider.visible = true;
+            } else {
+                // strings, and numbers without a range since no slider covers the whole type range
+                binding = true;
+                editBox.setValue(String.valueOf(values.get(id)));
+                binding = false;
+                textEdited = false;
+                editBox.moveCursorToStart();
+                editBox.visible = true;
+            }
+        }
+
+        /**
+         * Write the control value into the modified cache, or drop it when it matches the original again
+         */
+        void save() {
+            if (position < 0) return;
+            int id = configIds[position];
+            if (!originalValues.has(id)) return;
+            ConfigEntry entry = originalValues.schema().get(id);
+            Class<?> type = entry.type();
+            boolean changed;
+
+            if (type == boolean.class) {
+                boolean currentValue = checkbox.selected();
+                changed = originalValues.getBoolean(id) != currentValue;
+                if (changed) modifiedConfigCache.setBoolean(id, currentValue);
+            } else if (type != String.class && entry.hasRange()) {
+                // a slider only holds the value it was bound with until the user moves it
+                RangeSlider slider = type == double.class ? decimalSlider : integerSlider;
+                if (!slider.edited()) return;
+                if (type == int.class) {
+                    int currentValue = slider.getValueInt();
+                    changed = originalValues.getInt(id) != currentValue;
+                    if (changed) modifiedConfigCache.setInt(id, currentValue);
+                } else if (type == long.class) {
+                    long currentValue = slider.getValueLong();
+                    changed = originalValues.getLong(id) != currentValue;
+                    if (changed) modifiedConfigCache.setLong(id, currentValue);
+                } else {
+                    double currentValue = slider.getValue();
+                    changed = Math.abs(originalValues.getDouble(id) - currentValue) > 0.0001;
+                    if (changed) modifiedConfigCache.setDouble(id, currentValue);
                 }
-            } else if (originalValue instanceof String && value instanceof String && !originalValue.equals(value)) {
-                modifiedConfigCache.put(key, value);
+            } else if (!textEdited) {
+                return; // the box only holds the value it was bound with
+            } else if (type == String.class) {
+                String currentValue = editBox.getValue();
+                changed = !currentValue.equals(originalValues.getString(id));
+                if (changed) modifiedConfigCache.setString(id, currentValue);
+            } else {
+                Object currentValue = parseNumber(type, editBox.getValue());
+                if (currentValue == null) return; // not a number yet, keep the last valid edit
+                changed = !currentValue.equals(originalValues.get(id));
+                if (changed) modifiedConfigCache.set(id, currentValue);
             }
-        });
+            if (!changed) modifiedConfigCache.remove(id);
+        }
+
+        private static Object parseNumber(Class<?> type, String text) {
+            try {
+                if (type == int.class) return Integer.parseInt(text.trim());
+                if (type == long.class) return Long.parseLong(text.trim());
+                double value = Double.parseDouble(text.trim());
+                return Double.isFinite(value) ? value : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,138 @@
+package com.flechazo.jinchancygale.client.gui;
+
+import com.flechazo.jinchancygale.config.ConfigEntry;
+
+import java.util.*;
+
+/**
+ * Prefix index over the entries shown by a {@link ConfigScreen}, built once when the screen opens.
+ * Entries are addressed by their position in the screen's list; every lookup returns a {@link BitSet} of positions,
+ * so search terms and filters combine with plain bit operations instead of rescanning the entries.
+ */
+public class ConfigSearchIndex {
+    private static final int TERM_CACHE_SIZE = 256;
+
+    private final int size;
+    // lowercase token -> positions of entries containing it
+    private final TreeMap<String, BitSet> tokens = new TreeMap<>();
+    private final Map<String, BitSet> modules = new TreeMap<>();
+    private final Map<String, BitSet> categories = new TreeMap<>();
+    // prefix -> union of matching tokens, typing usually extends the last term
+    private final Map<String, Match> termCache = new HashMap<>();
+
+    /**
+     * @param entries Entries in list order
+     * @param labels  Formatted labels in list order
+     */
+    public ConfigSearchIndex(List<ConfigEntry> entries, List<String> labels) {
+        this.size = entries.size();
+        for (int i = 0; i < size; i++) {
+            ConfigEntry entry = entries.get(i);
+            addToken(entry.name(), i);
+            addWords(entry.name(), i);
+            addWords(labels.get(i), i);
+            addWords(entry.comment(), i);
+            addWords(entry.module(), i);
+            modules.computeIfAbsent(entry.module(), key -> new BitSet(size)).set(i);
+            for (String category : entry.categories()) {
+                categories.computeIfAbsent(category, key -> new BitSet(size)).set(i);
+            }
+        }
+    }
+
+    // split on anything that is not a letter or digit, and between camel case humps
+    private void addWords(String text, int position) {
+        if (text == null) return;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c);
+            boolean hump = start >= 0 && Character.isUpperCase(c) && Character.isLowerCase(text.charAt(i - 1));
+            if (start >= 0 && (!wordChar || hump)) {
+                addToken(text.substring(start, i), position);
+                start = -1;
+            }
+            if (wordChar && start < 0) start = i;
+        }
+    }
+
+    private void addToken(String token, int position) {
+        tokens.computeIfAbsent(token.toLowerCase(Locale.ROOT), key -> new BitSet(size)).set(position);
+    }
+
+    public Set<String> modules() {
+        return modules.keySet();
+    }
+
+    public Set<String> categories() {
+        return categories.keySet();
+    }
+
+    /**
+     * @param query Whitespace separated terms, each matching any token it is a prefix of
+     * @return Positions matching every term; all positions for a blank query
+     */
+    public BitSet search(String query) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        for (String term : query.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (term.isEmpty()) continue;
+            result.and(match(term));
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    private BitSet match(String prefix) {
+        Match cached = termCache.get(prefix);
+        if (cached != null) return cached.positions();
+        // a longer prefix matches a subset of the tokens of any shorter one
+        Match parent = null;
+        for (int length = prefix.length() - 1; length > 0 && parent == null; length--) {
+            parent = termCache.get(prefix.substring(0, length));
+        }
+        Match match;
+        if (parent != null && parent.tokens() == 0) {
+            match = parent;
+        } else {
+            Collection<BitSet> matching = tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+            int count = matching.size();
+            if (parent != null && parent.tokens() == count) {
+                // no token dropped out, the cached union is still exact
+                match = parent;
+            } else if (count == 1) {
+                match = new Match(matching.iterator().next(), 1);
+            } else {
+                BitSet union = new BitSet(size);
+                for (BitSet positions : matching) {
+                    union.or(positions);
+                }
+                match = new Match(union, count);
+            }
+        }
+        if (termCache.size() >= TERM_CACHE_SIZE) termCache.clear();
+        termCache.put(prefix, match);
+        return match.positions();
+    }
+
+    /**
+     * @return Positions of entries in the module, read-only
+     */
+    public BitSet module(String module) {
+        return modules.getOrDefault(module, new BitSet());
+    }
+
+    /**
+     * @return Positions of entries in modules of the category, read-only
+     */
+    public BitSet category(String category) {
+        return categories.getOrDefault(category, new BitSet());
+    }
+
+    /**
+     * @param positions Union of the matching tokens' positions, shared and never modified
+     * @param tokens    Number of tokens matched
+     */
+    private record Match(BitSet positions, int tokens) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.flechazo.jinchancygale.client.gui;
+
+import net.minecraft.network.chat.Component;
+import net.minecraftforge.client.gui.widget.ForgeSlider;
+
+/**
+ * Slider whose range can be changed after construction, so one instance can be rebound to different config entries.
+ */
+public class RangeSlider extends ForgeSlider {
+    private boolean binding = false;
+    // whether the user moved the slider since the last bind
+    private boolean edited = false;
+
+    public RangeSlider(int x, int y, int width, int height, double stepSize, int precision) {
+        super(x, y, width, height, Component.empty(), Component.empty(), 0, 1, 0, stepSize, precision, true);
+    }
+
+    /**
+     * Move the slider to a new range and value.
+     */
+    public void bind(double min, double max, double value) {
+        this.minValue = min;
+        this.maxValue = max;
+        binding = true;
+        setValue(value);
+        binding = false;
+        edited = false;
+    }
+
+    public boolean edited() {
+        return edited;
+    }
+
+    @Override
+    protected void applyValue() {
+        if (!binding) edited = true;
+    }
+}
@@ -0,0 +1,373 @@
+package com.flechazo.jinchancygale.config;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.Objects;
+import java.util.function.*;
+
+/**
+ * Typed accessor for a static config field.
+ * Built once when the schema is created so load/sync never touch reflection again,
+ * either from generated getter/setter lambdas or from a {@link VarHandle}.
+ */
+public abstract class ConfigAccessor {
+    private final String name;
+    private final Class<?> type;
+
+    protected ConfigAccessor(String name, Class<?> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Compile a static field into an accessor matching its type.
+     *
+     * @param field Static, non-final config field
+     * @return Accessor bound to the field
+     * @throws IllegalAccessException If the field's class cannot be opened for private access
+     */
+    public static ConfigAccessor of(Field field) throws IllegalAccessException {
+        VarHandle handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                .unreflectVarHandle(field);
+        String name = field.getName();
+        Class<?> type = field.getType();
+        if (type == boolean.class) return ofBoolean(name, () -> (boolean) handle.get(), value -> handle.set(value));
+        if (type == int.class) return ofInt(name, () -> (int) handle.get(), value -> handle.set(value));
+        if (type == long.class) return ofLong(name, () -> (long) handle.get(), value -> handle.set(value));
+        if (type == double.class) return ofDouble(name, () -> (double) handle.get(), value -> handle.set(value));
+        return ofObject(name, type, () -> handle.get(), value -> handle.set(value));
+    }
+
+    public static BooleanAccessor ofBoolean(String name, BooleanSupplier getter, BooleanSetter setter) {
+        return new BooleanAccessor(name, getter, setter);
+    }
+
+    public static IntAccessor ofInt(String name, IntSupplier getter, IntConsumer setter) {
+        return new IntAccessor(name, getter, setter);
+    }
+
+    public static LongAccessor ofLong(String name, LongSupplier getter, LongConsumer setter) {
+        return new LongAccessor(name, getter, setter);
+    }
+
+    public static DoubleAccessor ofDouble(String name, DoubleSupplier getter, DoubleConsumer setter) {
+        return new DoubleAccessor(name, getter, setter);
+    }
+
+    public static ObjectAccessor ofObject(String name, Class<?> type, Supplier<Object> getter, Consumer<Object> setter) {
+        return new ObjectAccessor(name, type, getter, setter);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * Read current field value (boxed, for packets and GUI).
+     */
+    public abstract Object get();
+
+    /**
+     * Write a value coming from a packet or GUI, coercing numbers to the field type.
+     */
+    public abstract void set(Object value);
+
+    /**
+     * Copy the value held by the spec into the field.
+     */
+    public abstract void load(ForgeConfigSpec.ConfigValue<?> value);
+
+    /**
+     * Copy the field into a value slot without boxing.
+     */
+    public abstract void store(ConfigValues values, int id);
+
+    /**
+     * Copy a value slot into the field without boxing.
+     */
+    public abstract void restore(ConfigValues values, int id);
+
+    /**
+     * @return Whether the field holds the same value as the slot
+     */
+    public abstract boolean matches(ConfigValues values, int id);
+
+    /**
+     * @return Whether the spec holds the same value as the slot, so loading it would not change the field
+     */
+    public abstract boolean matches(ForgeConfigSpec.ConfigValue<?> value, ConfigValues values, int id);
+
+    @FunctionalInterface
+    public interface BooleanSetter {
+        void accept(boolean value);
+    }
+
+    public static final class BooleanAccessor extends ConfigAccessor {
+        private final BooleanSupplier getter;
+        private final BooleanSetter setter;
+
+        BooleanAccessor(String name, BooleanSupplier getter, BooleanSetter setter) {
+            super(name, boolean.class);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public boolean getBoolean() {
+            return getter.getAsBoolean();
+        }
+
+        public void setBoolean(boolean value) {
+            setter.accept(value);
+        }
+
+        @Override
+        public Object get() {
+            return getBoolean();
+        }
+
+        @Override
+        public void set(Object value) {
+            setBoolean(value instanceof Boolean b ? b : Boolean.parseBoolean(value.toString()));
+        }
+
+        @Override
+        public void load(ForgeConfigSpec.ConfigValue<?> value) {
+            setBoolean((Boolean) value.get());
+        }
+
+        @Override
+        public void store(ConfigValues values, int id) {
+            values.setBoolean(id, getBoolean());
+        }
+
+        @Override
+        public void restore(ConfigValues values, int id) {
+            setBoolean(values.getBoolean(id));
+        }
+
+        @Override
+        public boolean matches(ConfigValues values, int id) {
+            return values.has(id) && values.getBoolean(id) == getBoolean();
+        }
+
+        @Override
+        public boolean matches(ForgeConfigSpec.ConfigValue<?> value, ConfigValues values, int id) {
+            return values.has(id) && values.getBoolean(id) == (Boolean) value.get();
+        }
+    }
+
+    public static final class IntAccessor extends ConfigAccessor {
+        private final IntSupplier getter;
+        private final IntConsumer setter;
+
+        IntAccessor(String name, IntSupplier getter, IntConsumer setter) {
+            super(name, int.class);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public int getInt() {
+            return getter.getAsInt();
+        }
+
+        public void setInt(int value) {
+            setter.accept(value);
+        }
+
+        @Override
+        public Object get() {
+            return getInt();
+        }
+
+        @Override
+        public void set(Object value) {
+            setInt(value instanceof Number n ? n.intValue() : Integer.parseInt(value.toString()));
+        }
+
+        @Override
+        public void load(ForgeConfigSpec.ConfigValue<?> value) {
+            setInt(((Number) value.get()).intValue());
+        }
+
+        @Override
+        public void store(ConfigValues values, int id) {
+            values.setInt(id, getInt());
+        }
+
+        @Override
+        public void restore(ConfigValues values, int id) {
+            setInt(values.getInt(id));
+        }
+
+        @Override
+        public boolean matches(ConfigValues values, int id) {
+            return values.has(id) && values.getInt(id) == getInt();
+        }
+
+        @Override
+        public boolean matches(ForgeConfigSpec.ConfigValue<?> value, ConfigValues values, int id) {
+            return values.has(id) && values.getInt(id) == ((Number) value.get()).intValue();
+        }
+    }
+
+    public static final class LongAccessor extends ConfigAccessor {
+        private final LongSupplier getter;
+        private final LongConsumer setter;
+
+        LongAccessor(String name, LongSupplier getter, LongConsumer setter) {
+            super(name, long.class);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public long getLong() {
+            return getter.getAsLong();
+        }
+
+        public void setLong(long value) {
+            setter.accept(value);
+        }
+
+        @Override
+        public Object get() {
+            return getLong();
+        }
+
+        @Override
+        public void set(Object value) {
+            setLong(value instanceof Number n ? n.longValue() : Long.parseLong(value.toString()));
+        }
+
+        @Override
+        public void load(ForgeConfigSpec.ConfigValue<?> value) {
+            setLong(((Number) value.get()).longValue());
+        }
+
+        @Override
+        public void store(ConfigValues values, int id) {
+            values.setLong(id, getLong());
+        }
+
+        @Override
+        public void restore(ConfigValues values, int id) {
+            setLong(values.getLong(id));
+        }
+
+        @Override
+        public boolean matches(ConfigValues values, int id) {
+            return values.has(id) && values.getLong(id) == getLong();
+        }
+
+        @Override
+        public boolean matches(ForgeConfigSpec.ConfigValue<?> value, ConfigValues values, int id) {
+            return values.has(id) && values.getLong(id) == ((Number) value.get()).longValue();
+        }
+    }
+
+    public static final class DoubleAccessor extends ConfigAccessor {
+        private final DoubleSupplier getter;
+        private final DoubleConsumer setter;
+
+        DoubleAccessor(String name, DoubleSupplier getter, DoubleConsumer setter) {
+            super(name, double.class);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public double getDouble() {
+            return getter.getAsDouble();
+        }
+
+        public void setDouble(double value) {
+            setter.accept(value);
+        }
+
+        @Override
+        public Object get() {
+            return getDouble();
+        }
+
+        @Override
+        public void set(Object value) {
+            setDouble(value instanceof Number n ? n.doubleValue() : Double.parseDouble(value.toString()));
+        }
+
+        @Override
+        public void load(ForgeConfigSpec.ConfigValue<?> value) {
+            setDouble(((Number) value.get()).doubleValue());
+        }
+
+        @Override
+        public void store(ConfigValues values, int id) {
+            values.setDouble(id, getDouble());
+        }
+
+        @Override
+        public void restore(ConfigValues values, int id) {
+            setDouble(values.getDouble(id));
+        }
+
+        @Override
+        public boolean matches(ConfigValues values, int id) {
+            return values.has(id) && Double.doubleToRawLongBits(values.getDouble(id)) == Double.doubleToRawLongBits(getDouble());
+        }
+
+        @Override
+        public boolean matches(ForgeConfigSpec.ConfigValue<?> value, ConfigValues values, int id) {
+            return values.has(id) && Double.doubleToRawLongBits(values.getDouble(id)) == Double.doubleToRawLongBits(((Number) value.get()).doubleValue());
+        }
+    }
+
+    public static final class ObjectAccessor extends ConfigAccessor {
+        private final Supplier<Object> getter;
+        private final Consumer<Object> setter;
+
+        ObjectAccessor(String name, Class<?> type, Supplier<Object> getter, Consumer<Object> setter) {
+            super(name, type);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public Object get() {
+            return getter.get();
+        }
+
+        @Override
+        public void set(Object value) {
+            setter.accept(ConfigManager.tryParse(type(), value));
+        }
+
+        @Override
+        public void load(ForgeConfigSpec.ConfigValue<?> value) {
+            setter.accept(value.get());
+        }
+
+        @Override
+        public void store(ConfigValues values, int id) {
+            values.setString(id, Objects.toString(get(), ""));
+        }
+
+        @Override
+        public void restore(ConfigValues values, int id) {
+            set(values.getString(id));
+        }
+
+        @Override
+        public boolean matches(ConfigValues values, int id) {
+            return values.has(id) && Objects.equals(values.getString(id), get());
+        }
+
+        @Override
+        public boolean matches(ForgeConfigSpec.ConfigValue<?> value, ConfigValues values, int id) {
+            return values.has(id) && Objects.equals(values.getString(id), Objects.toString(value.get(), ""));
+        }
+    }
+}
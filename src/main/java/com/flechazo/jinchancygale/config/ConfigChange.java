@@ -0,0 +1,14 @@
+package com.flechazo.jinchancygale.config;
+
+/**
+ * A single value change within an applied batch.
+ *
+ * @param entry    Changed entry
+ * @param oldValue Value before the batch
+ * @param newValue Value after the batch
+ */
+public record ConfigChange(ConfigEntry entry, Object oldValue, Object newValue) {
+    public String key() {
+        return entry.name();
+    }
+}
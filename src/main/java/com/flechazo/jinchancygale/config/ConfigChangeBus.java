@@ -0,0 +1,80 @@
+package com.flechazo.jinchancygale.config;
+
+import net.minecraft.Util;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.LogicalSidedProvider;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Dispatches applied config batches to subscribed listeners.
+ */
+public class ConfigChangeBus {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public Subscription subscribe(Predicate<ConfigEntry> filter, ConfigListener.Dispatch dispatch, ConfigListener listener) {
+        Subscription subscription = new Subscription(filter, dispatch, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Hand a batch to every listener with at least one matching change.
+     */
+    public void publish(List<ConfigChange> changes) {
+        if (changes.isEmpty()) return;
+        for (Subscription subscription : subscriptions) {
+            List<ConfigChange> matched = new ArrayList<>();
+            for (ConfigChange change : changes) {
+                if (subscription.filter.test(change.entry())) matched.add(change);
+            }
+            if (!matched.isEmpty()) dispatch(subscription, List.copyOf(matched));
+        }
+    }
+
+    private static void dispatch(Subscription subscription, List<ConfigChange> changes) {
+        Runnable task = () -> {
+            try {
+                subscription.listener.onChange(changes);
+            } catch (Exception e) {
+                LOGGER.error("Config listener failed", e);
+            }
+        };
+        switch (subscription.dispatch) {
+            case IMMEDIATE -> task.run();
+            case SERVER -> {
+                MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+                if (server != null) server.execute(task);
+            }
+            case CLIENT -> {
+                if (FMLEnvironment.dist.isClient()) LogicalSidedProvider.WORKQUEUE.get(LogicalSide.CLIENT).execute(task);
+            }
+            case ASYNC -> Util.backgroundExecutor().execute(task);
+        }
+    }
+
+    public class Subscription {
+        private final Predicate<ConfigEntry> filter;
+        private final ConfigListener.Dispatch dispatch;
+        private final ConfigListener listener;
+
+        private Subscription(Predicate<ConfigEntry> filter, ConfigListener.Dispatch dispatch, ConfigListener listener) {
+            this.filter = filter;
+            this.dispatch = dispatch;
+            this.listener = listener;
+        }
+
+        public void unsubscribe() {
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.List;
+
+/**
+ * Static description of a config field, enough to define it in the spec without reading annotations.
+ *
+ * @param module     Owning module
+ * @param categories Categories of the module, from {@link com.flechazo.jinchancygale.config.flag.ConfigModuleMarker#category()}
+ * @param name       Field name, used as the key in packets and GUI
+ * @param path       Key in the config file, from {@link com.flechazo.jinchancygale.config.flag.ConfigInfo#name()}
+ * @param comment    Comment written to the config file
+ * @param type       Field type
+ * @param min        Typed lower bound, or null when unbounded
+ * @param max        Typed upper bound, or null when unbounded
+ * @param sync       False when the field is marked {@link com.flechazo.jinchancygale.config.flag.DoNotSync}
+ * @param local      Whether the module exists on one physical side only, see {@link com.flechazo.jinchancygale.config.flag.ConfigModuleMarker#side()}
+ * @param accessor   Field accessor
+ */
+public record ConfigDefinition(ConfigModule module, List<String> categories, String name, String path, String comment, Class<?> type,
+                               Number min, Number max, boolean sync, boolean local, ConfigAccessor accessor) {
+}
@@ -0,0 +1,57 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.BitSet;
+
+/**
+ * Bucketed content hash of config values.
+ * Shared ids are split into fixed buckets with one hash each, so two sides can find which buckets differ
+ * by exchanging a few bytes instead of the values themselves. Local ids differ per side and are left out.
+ */
+public final class ConfigDigest {
+    public static final int BUCKET_SIZE = 32;
+
+    private ConfigDigest() {
+    }
+
+    /**
+     * @return One hash per bucket of the schema's shared ids
+     */
+    public static int[] of(ConfigValues values) {
+        int shared = values.schema().sharedSize();
+        int[] digest = new int[(shared + BUCKET_SIZE - 1) / BUCKET_SIZE];
+        for (int bucket = 0; bucket < digest.length; bucket++) {
+            int hash = 1;
+            int end = Math.min((bucket + 1) * BUCKET_SIZE, shared);
+            for (int id = values.nextId(bucket * BUCKET_SIZE); id >= 0 && id < end; id = values.nextId(id + 1)) {
+                hash = 31 * (31 * hash + id) + values.valueHash(id);
+            }
+            digest[bucket] = hash;
+        }
+        return digest;
+    }
+
+    /**
+     * Values of the buckets whose hash differs from a remote digest.
+     * Only the keys the remote side holds are compared and returned, so a sparse remote copy stays sparse.
+     *
+     * @param values  Local values
+     * @param present Ids held by the remote values
+     * @param remote  Digest of the remote values, as built by {@link #of}
+     * @return Sparse values holding the remote keys of the differing buckets, or null if the digest does not fit the schema
+     */
+    public static ConfigValues diff(ConfigValues values, BitSet present, int[] remote) {
+        values = values.copy();
+        values.retainAll(present);
+        int[] local = of(values);
+        if (remote.length != local.length) return null;
+        ConfigValues data = new ConfigValues(values.schema());
+        for (int bucket = 0; bucket < local.length; bucket++) {
+            if (local[bucket] == remote[bucket]) continue;
+            int end = Math.min((bucket + 1) * BUCKET_SIZE, values.schema().sharedSize());
+            for (int id = values.nextId(bucket * BUCKET_SIZE); id >= 0 && id < end; id = values.nextId(id + 1)) {
+                data.copy(id, values);
+            }
+        }
+        return data;
+    }
+}
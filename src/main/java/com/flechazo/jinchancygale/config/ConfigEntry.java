@@ -0,0 +1,49 @@
+package com.flechazo.jinchancygale.config;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+
+import java.util.List;
+
+/**
+ * Immutable descriptor of a single config key, built once in {@link ConfigManager} init.
+ *
+ * @param id           Index in the schema, also the packet codec id and value slot
+ * @param name         Field name, used as the key in packets and GUI
+ * @param module       Owning {@link ConfigModule#name()}
+ * @param categories   Categories of the owning module, from {@link com.flechazo.jinchancygale.config.flag.ConfigModuleMarker#category()}
+ * @param comment      Comment from {@link com.flechazo.jinchancygale.config.flag.ConfigInfo}
+ * @param type         Field type
+ * @param min          Typed lower bound, or null when unbounded
+ * @param max          Typed upper bound, or null when unbounded
+ * @param sync         False when the field is marked {@link com.flechazo.jinchancygale.config.flag.DoNotSync}
+ * @param local        True when the owning module exists on one physical side only; never sent over the network
+ * @param defaultValue Value of the field before the config was loaded
+ * @param accessor     Compiled field accessor
+ * @param value        Spec value backing the field
+ */
+public record ConfigEntry(int id, String name, String module, List<String> categories, String comment, Class<?> type,
+                          Number min, Number max, boolean sync, boolean local, Object defaultValue,
+                          ConfigAccessor accessor, ForgeConfigSpec.ConfigValue value) {
+    public boolean hasRange() {
+        return min != null && max != null;
+    }
+
+    /**
+     * @return Whether the value in this entry's slot is within its range; doubles must also be finite
+     */
+    public boolean accepts(ConfigValues values) {
+        if (type == double.class) {
+            double value = values.getDouble(id);
+            return Double.isFinite(value) && (!hasRange() || value >= min.doubleValue() && value <= max.doubleValue());
+        } else if (!hasRange()) {
+            return true;
+        } else if (type == int.class) {
+            int value = values.getInt(id);
+            return value >= min.intValue() && value <= max.intValue();
+        } else if (type == long.class) {
+            long value = values.getLong(id);
+            return value >= min.longValue() && value <= max.longValue();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.List;
+
+/**
+ * Receives config changes, called once per applied batch with the changes it subscribed to.
+ */
+@FunctionalInterface
+public interface ConfigListener {
+    void onChange(List<ConfigChange> changes);
+
+    /**
+     * Typed listener for a single key.
+     */
+    @FunctionalInterface
+    interface Value<T> {
+        void onChange(T oldValue, T newValue);
+    }
+
+    /**
+     * Where listeners are called.
+     */
+    enum Dispatch {
+        // on the thread applying the batch
+        IMMEDIATE,
+        // on the server thread, skipped when no server is running
+        SERVER,
+        // on the client thread, skipped on a dedicated server
+        CLIENT,
+        // on the background worker pool
+        ASYNC
+    }
+}
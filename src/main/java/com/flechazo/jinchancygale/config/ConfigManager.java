@@ -1,10 +1,7 @@
 package com.flechazo.jinchancygale.config;
 
-import com.flechazo.jinchancygale.config.flag.ConfigInfo;
-import com.flechazo.jinchancygale.config.flag.DoNotLoad;
-import com.flechazo.jinchancygale.config.flag.DoNotSync;
-import com.flechazo.jinchancygale.config.flag.RangeFlag;
-import com.flechazo.jinchancygale.util.ClassLoaderUtil;
+import com.flechazo.jinchancygale.metrics.ConfigMetrics;
+import com.flechazo.jinchancygale.network.module.ConfigSyncTracker;
 import com.mojang.datafixers.util.Pair;
 import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.fml.config.ModConfig;
@@ -13,81 +10,107 @@ import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.function.Function;
 
 public class ConfigManager {
-    public static final Map<ForgeConfigSpec.ConfigValue, Field> map = new HashMap<>();
-    public static final Map<String, Object> defaultValues = new HashMap<>();
+    private static final ConfigRevisions revisions = new ConfigRevisions();
+    private static final ConfigChangeBus changeBus = new ConfigChangeBus();
+    // writers build the next snapshot under this lock, readers never take it
+    private static final Object writeLock = new Object();
+    private static ConfigSchema schema = ConfigSchema.EMPTY;
+    // current values in primitive slots, kept in step with the config fields
+    private static volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private static ConfigValues defaultValues = new ConfigValues(ConfigSchema.EMPTY);
     private static final Logger LOGGER = LogManager.getLogger();
 
     public static void register(FMLJavaModLoadingContext context) {
         context.registerConfig(ModConfig.Type.COMMON, init());
         context.getModEventBus().addListener(ConfigManager::onConfigLoad);
+        context.getModEventBus().addListener(ConfigManager::onConfigReload);
     }
 
     public static void onConfigLoad(final ModConfigEvent.Loading event) {
         if (event.getConfig().getType() == ModConfig.Type.COMMON) {
+            ConfigPersister.bind(event.getConfig());
             load(); // need to load after this is loaded
         }
     }
 
+    public static void onConfigReload(final ModConfigEvent.Reloading event) {
+        if (event.getConfig().getType() == ModConfig.Type.COMMON) {
+            ConfigPersister.bind(event.getConfig());
+            ConfigReloader.schedule(ConfigManager::reload); // file may be rewritten several times in a row
+        }
+    }
+
     private static ForgeConfigSpec init() {
-        // first load all modules
-        final Set<ConfigModule> configModules = new HashSet<>(ClassLoaderUtil.loadClasses("com.flechazo.modernfurniture.config.module", ConfigModule.class));
+        return init(ConfigRegistry.load());
+    }
+
+    /**
+     * Build the spec and schema from a registry's definitions.
+     *
+     * @param registry Source of config definitions
+     * @return Spec to register
+     */
+    public static ForgeConfigSpec init(ConfigRegistry registry) {
         final ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
+        final List<ConfigEntry> entries = new ArrayList<>();
+        final List<ConfigDefinition> definitions = new ArrayList<>(registry.definitions());
+        // ids follow key order, keys of one-sided modules after the shared ones so shared ids agree on both sides
+        definitions.sort(Comparator.comparing(ConfigDefinition::local)
+                .thenComparing(ConfigDefinition::name));
 
-        for (ConfigModule module : configModules) {
-            Field[] fields = module.getClass().getDeclaredFields();
-
-            builder.push(module.name());
-
-            // load single instance field
-            for (Field field : fields) {
-                int modifiers = field.getModifiers();
-                if (Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
-                    boolean skipLoad = field.getAnnotation(DoNotLoad.class) != null;
-                    ConfigInfo configInfo = field.getAnnotation(ConfigInfo.class);
-                    RangeFlag rangeFlag = field.getAnnotation(RangeFlag.class);
-
-                    if (skipLoad || configInfo == null) {
-                        continue;
-                    }
-
-                    field.setAccessible(true);
-
-                    try {
-                        Class<?> type = field.getType();
-
-                        defaultValues.put(field.getName(), field.get(null));
-
-                        ForgeConfigSpec.ConfigValue value = null;
-
-                        if (type == boolean.class) {
-                            value = builder.comment(configInfo.comment())
-                                    .define(configInfo.name(), (boolean) field.get(null));
-                        } else if (type == int.class && rangeFlag != null) {
-                            value = builder.comment(configInfo.comment())
-                                    .defineInRange(configInfo.name(), (int) field.get(null), Integer.parseInt(rangeFlag.min()), Integer.parseInt(rangeFlag.max()));
-                        } else if (type == double.class && rangeFlag != null) {
-                            value = builder.comment(configInfo.comment())
-                                    .defineInRange(configInfo.name(), (double) field.get(null), Double.parseDouble(rangeFlag.min()), Double.parseDouble(rangeFlag.max()));
-                        } else if (type == long.class && rangeFlag != null) {
-                            value = builder.comment(configInfo.comment())
-                                    .defineInRange(configInfo.name(), (long) field.get(null), Long.parseLong(rangeFlag.min()), Long.parseLong(rangeFlag.max()));
-                        }
-                        map.put(value, field); // put into map - wait for next process
-                    } catch (IllegalAccessException e) {
-                        LOGGER.error("Error loading config field: {}", field.getName());
-                    }
-                }
-            }
+        for (ConfigDefinition definition : definitions) {
+            String module = definition.module().name();
+            Object defaultValue = definition.accessor().get();
+            Pair<Number, Number> range = definition.min() != null && definition.max() != null ?
+                    Pair.of(definition.min(), definition.max()) : null;
+
+            builder.push(module);
+            ForgeConfigSpec.ConfigValue value = define(builder.comment(definition.comment()), definition.path(), definition.type(), defaultValue, range);
             builder.pop();
+            if (value == null) {
+                LOGGER.error("Unsupported config field type {} for {}", definition.type().getName(), definition.name());
+                continue;
+            }
+
+            entries.add(new ConfigEntry(entries.size(), definition.name(), module, definition.categories(), definition.comment(), definition.type(),
+                    definition.min(), definition.max(), definition.sync(), definition.local(), defaultValue, definition.accessor(), value));
+        }
+        schema = new ConfigSchema(entries);
+        ConfigValues values = new ConfigValues(schema);
+        defaultValues = new ConfigValues(schema);
+        for (ConfigEntry entry : schema.entries()) {
+            entry.accessor().store(values, entry.id());
+            entry.accessor().store(defaultValues, entry.id());
+        }
+        snapshot = new ConfigSnapshot(revisions.current(), values, Set.of());
+        if (registry.schemaHash() != 0 && registry.schemaHash() != schema.hash()) {
+            LOGGER.error("Config schema hash {} does not match the generated registry ({})", schema.hash(), registry.schemaHash());
         }
         return builder.build();
     }
 
+    private static ForgeConfigSpec.ConfigValue define(ForgeConfigSpec.Builder builder, String name, Class<?> type, Object defaultValue, Pair<Number, Number> range) {
+        if (type == boolean.class) {
+            return builder.define(name, (boolean) defaultValue);
+        } else if (type == int.class) {
+            return range == null ? builder.defineInRange(name, (int) defaultValue, Integer.MIN_VALUE, Integer.MAX_VALUE) :
+                    builder.defineInRange(name, (int) defaultValue, range.getFirst().intValue(), range.getSecond().intValue());
+        } else if (type == long.class) {
+            return range == null ? builder.defineInRange(name, (long) defaultValue, Long.MIN_VALUE, Long.MAX_VALUE) :
+                    builder.defineInRange(name, (long) defaultValue, range.getFirst().longValue(), range.getSecond().longValue());
+        } else if (type == double.class) {
+            return range == null ? builder.defineInRange(name, (double) defaultValue, -Double.MAX_VALUE, Double.MAX_VALUE) :
+                    builder.defineInRange(name, (double) defaultValue, range.getFirst().doubleValue(), range.getSecond().doubleValue());
+        } else if (type == String.class) {
+            return builder.define(name, defaultValue != null ? (String) defaultValue : "");
+        }
+        return null;
+    }
+
     public static Object tryParse(Class<?> targetType, Object value) {
         if (!targetType.isAssignableFrom(value.getClass())) {
             try {
@@ -117,53 +140,168 @@ public class ConfigManager {
     }
 
     public static void load() { // load all fields
-        map.forEach((value, field) -> {
-            field.setAccessible(true);
-            try {
-                if (value != null)
-                    field.set(null, value.get());
-            } catch (IllegalAccessException e) {
-                LOGGER.error("Error setting value to config field: {}", field.getName());
+        long start = System.nanoTime();
+        ConfigSnapshot result = transact(ConfigManager::loadFromSpec);
+        ConfigMetrics.recordApply(ConfigMetrics.LOAD, start, result.changed().size());
+    }
+
+    /**
+     * Apply only the values that differ between the reloaded file and the current values,
+     * then push those keys to connected clients.
+     *
+     * @return Snapshot after the reload; {@link ConfigSnapshot#changed()} holds the keys whose value changed
+     */
+    public static ConfigSnapshot reload() {
+        long start = System.nanoTime();
+        ConfigSnapshot result = transact(ConfigManager::loadFromSpec);
+        ConfigMetrics.recordApply(ConfigMetrics.LOAD, start, result.changed().size());
+        if (result.changed().isEmpty()) return result;
+        ConfigSyncTracker.broadcastChanges(result);
+        LOGGER.info("Reloaded {} changed config value(s)", result.changed().size());
+        return result;
+    }
+
+    private static List<ConfigChange> loadFromSpec(ConfigValues next) {
+        List<ConfigChange> changes = new ArrayList<>();
+        Set<List<String>> unsaved = ConfigPersister.pendingPaths();
+        for (ConfigEntry entry : schema.entries()) {
+            // newer than the file, or written but not reloaded yet
+            if (!unsaved.isEmpty() && unsaved.contains(entry.value().getPath())
+                    && !ConfigPersister.confirm(entry.value().getPath(), entry.value().get())) continue;
+            // only fields whose spec value differs from the current slot are written
+            if (entry.accessor().matches(entry.value(), next, entry.id())) continue;
+            Object oldValue = next.get(entry.id());
+            entry.accessor().load(entry.value());
+            entry.accessor().store(next, entry.id());
+            changes.add(new ConfigChange(entry, oldValue, next.get(entry.id())));
+        }
+        return changes;
+    }
+
+    /**
+     * Apply values to config fields as one batch.
+     *
+     * @param serverConfig Values to apply, may be sparse
+     * @param flag         Whether to also write changed values back to the config file, done in the background
+     * @return Snapshot after the batch; {@link ConfigSnapshot#changed()} holds the keys whose value actually changed
+     */
+    public static ConfigSnapshot syncValue(ConfigValues serverConfig, boolean flag) {
+        long start = System.nanoTime();
+        ConfigSnapshot result = transact(next -> {
+            List<ConfigChange> changes = new ArrayList<>();
+            for (int id = serverConfig.nextId(0); id >= 0; id = serverConfig.nextId(id + 1)) {
+                if (serverConfig.sameValue(id, next)) continue;
+                ConfigEntry entry = schema.get(id);
+                Object oldValue = next.get(id);
+                entry.accessor().restore(serverConfig, id);
+                next.copy(id, serverConfig);
+                Object newValue = next.get(id);
+                if (flag) ConfigPersister.write(entry, newValue);
+                changes.add(new ConfigChange(entry, oldValue, newValue));
             }
+            return changes;
         });
+        ConfigMetrics.recordApply(ConfigMetrics.SYNC, start, result.changed().size());
+        return result;
     }
 
-    public static void syncValue(Map<String, Object> serverConfig, boolean flag) {
-        map.forEach((value, field) -> {
-            field.setAccessible(true);
-            try {
-                if (value != null) {
-                    Object newValue = serverConfig.get(field.getName());
-                    if (newValue != null) {
-                        field.set(null, newValue);
-                        if (flag) value.set(tryParse(field.get(null).getClass(), newValue));
-                    }
-                }
-            } catch (IllegalAccessException e) {
-                LOGGER.error("Error sync config field: {}", field.getName());
+    /**
+     * Apply a batch to a private copy of the current values, then publish it as one revision and notify listeners.
+     * Batches are serialized; listeners run after the lock is released.
+     */
+    private static ConfigSnapshot transact(Function<ConfigValues, List<ConfigChange>> batch) {
+        List<ConfigChange> changes;
+        ConfigSnapshot result;
+        synchronized (writeLock) {
+            ConfigSnapshot current = snapshot;
+            ConfigValues next = current.values().copy();
+            changes = batch.apply(next);
+            if (changes.isEmpty()) return new ConfigSnapshot(current.revision(), current.values(), Set.of());
+            Set<String> changed = new HashSet<>();
+            for (ConfigChange change : changes) {
+                changed.add(change.key());
             }
+            result = new ConfigSnapshot(revisions.commit(changed), next, Collections.unmodifiableSet(changed));
+            snapshot = result;
+        }
+        changeBus.publish(changes);
+        return result;
+    }
+
+    /**
+     * Listen to changes of a single key.
+     */
+    public static ConfigChangeBus.Subscription subscribeKey(String key, ConfigListener.Dispatch dispatch, ConfigListener listener) {
+        return changeBus.subscribe(entry -> entry.name().equals(key), dispatch, listener);
+    }
+
+    /**
+     * Listen to changes of a single key with typed old and new values.
+     *
+     * @param type Boxed value type, e.g. {@code Integer.class} for an int field
+     */
+    public static <T> ConfigChangeBus.Subscription subscribeValue(String key, Class<T> type, ConfigListener.Dispatch dispatch, ConfigListener.Value<T> listener) {
+        return subscribeKey(key, dispatch, changes -> {
+            ConfigChange change = changes.get(0);
+            listener.onChange(type.cast(change.oldValue()), type.cast(change.newValue()));
         });
     }
 
-    public static Field getField(String key) {
-        return map.entrySet().stream().filter(entry -> entry.getValue().getName().equals(key)).findFirst().map(Map.Entry::getValue).orElse(null);
+    /**
+     * Listen to changes of every key in a module, see {@link ConfigModule#name()}.
+     */
+    public static ConfigChangeBus.Subscription subscribeModule(String module, ConfigListener.Dispatch dispatch, ConfigListener listener) {
+        return changeBus.subscribe(entry -> entry.module().equals(module), dispatch, listener);
+    }
+
+    /**
+     * Listen to changes of every key in modules of a category, see {@link com.flechazo.jinchancygale.config.flag.ConfigModuleMarker#category()}.
+     */
+    public static ConfigChangeBus.Subscription subscribeCategory(String category, ConfigListener.Dispatch dispatch, ConfigListener listener) {
+        return changeBus.subscribe(entry -> entry.categories().contains(category), dispatch, listener);
+    }
+
+    public static ConfigRevisions revisions() {
+        return revisions;
+    }
+
+    public static ConfigSchema schema() {
+        return schema;
+    }
+
+    public static ConfigEntry getEntry(String key) {
+        return schema.get(key);
     }
 
     public static Pair<Number, Number> getRange(String key) {
-        Field field = getField(key);
-        if (field == null) return null;
-        RangeFlag rangeFlag = field.getAnnotation(RangeFlag.class);
-        return rangeFlag != null ? Pair.of(Integer.parseInt(rangeFlag.min()), Integer.parseInt(rangeFlag.max())) : null;
-    }
-
-    public static Map<String, Object> createSyncData(boolean getAll) {
-        Map<String, Object> map = new HashMap<>();
-        Map.copyOf(ConfigManager.map).forEach((configValue, field) -> {
-            field.setAccessible(true);
-            DoNotSync doNotSync = field.getAnnotation(DoNotSync.class);
-            if ((!getAll) && doNotSync != null) return;
-            map.put(field.getName(), configValue.get());
-        });
-        return map;
+        ConfigEntry entry = schema.get(key);
+        return entry != null && entry.hasRange() ? Pair.of(entry.min(), entry.max()) : null;
+    }
+
+    /**
+     * Latest published snapshot. Read it once and use it for values that must be consistent with each other;
+     * the static config fields are written one by one while a batch is applied.
+     */
+    public static ConfigSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Current values. Must not be modified; changes go through {@link #syncValue}.
+     */
+    public static ConfigValues values() {
+        return snapshot.values();
+    }
+
+    public static ConfigValues defaultValues() {
+        return defaultValues;
+    }
+
+    public static ConfigValues createSyncData(boolean getAll) {
+        return snapshot.createSyncData(getAll);
+    }
+
+    public static ConfigValues createSyncData(Collection<String> keys) {
+        return snapshot.createSyncData(keys);
     }
 }
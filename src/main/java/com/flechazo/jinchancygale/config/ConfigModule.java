@@ -15,7 +15,13 @@ public interface ConfigModule {
         return config.get(keyName);
     }
 
+    /**
+     * Categories used when {@link com.flechazo.jinchancygale.config.flag.ConfigModuleMarker#category()} declares none.
+     *
+     * @deprecated Declare categories on the marker, which the registries read without instantiating the module
+     */
+    @Deprecated
     default String[] category() {
         return new String[]{};
     }
-}
\ No newline at end of file
+}
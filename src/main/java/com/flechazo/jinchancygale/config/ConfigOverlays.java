@@ -0,0 +1,192 @@
+package com.flechazo.jinchancygale.config;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.file.FileConfig;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.server.ServerAboutToStartEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.flechazo.jinchancygale.JinchancyGale.MODID;
+
+/**
+ * Layered config: the global values, then a per-dimension overlay, then a per-permission-level overlay.
+ * Overlays are sparse; the effective values of a layer are built once and cached,
+ * and a cached view is rebuilt only when the snapshot or a layer beneath it has been replaced.
+ * <p>
+ * Overlays are read from {@code config/jinchancy_gale-overlays.toml} when the server starts:
+ * <pre>
+ * [dimension."minecraft:the_nether"]
+ * someKey = 3
+ * [group."2"]
+ * otherKey = true
+ * </pre>
+ */
+public class ConfigOverlays {
+    private static final Logger LOGGER = LogManager.getLogger();
+    // layers are replaced, never modified, so identity tells whether a cached view is current
+    private static final Map<ResourceKey<Level>, ConfigValues> dimensions = new ConcurrentHashMap<>();
+    private static final Map<Integer, ConfigValues> groups = new ConcurrentHashMap<>();
+    private static final Map<ResourceKey<Level>, Resolved> dimensionViews = new ConcurrentHashMap<>();
+    private static final Map<ViewKey, Resolved> playerViews = new ConcurrentHashMap<>();
+
+    /**
+     * Replace the overlay of a dimension.
+     *
+     * @param values Overriding values, may be sparse; copied
+     */
+    public static void setDimension(ResourceKey<Level> dimension, ConfigValues values) {
+        if (values == null || values.isEmpty()) {
+            dimensions.remove(dimension);
+        } else {
+            dimensions.put(dimension, values.copy());
+        }
+        dimensionViews.remove(dimension);
+        playerViews.keySet().removeIf(key -> key.dimension() == dimension);
+    }
+
+    /**
+     * Replace the overlay of players with the given permission level.
+     *
+     * @param values Overriding values, may be sparse; copied
+     */
+    public static void setGroup(int permissionLevel, ConfigValues values) {
+        if (values == null || values.isEmpty()) {
+            groups.remove(permissionLevel);
+        } else {
+            groups.put(permissionLevel, values.copy());
+        }
+        playerViews.keySet().removeIf(key -> key.group() == permissionLevel);
+    }
+
+    public static void clear() {
+        dimensions.clear();
+        groups.clear();
+        dimensionViews.clear();
+        playerViews.clear();
+    }
+
+    /**
+     * @return Overlay of the dimension, null if it has none; must not be modified
+     */
+    public static ConfigValues dimensionOverlay(ResourceKey<Level> dimension) {
+        return dimensions.get(dimension);
+    }
+
+    public static ConfigValues resolve(ResourceKey<Level> dimension) {
+        return resolve(ConfigManager.snapshot(), dimension);
+    }
+
+    public static ConfigValues resolve(ServerPlayer player) {
+        return resolve(ConfigManager.snapshot(), player);
+    }
+
+    /**
+     * Effective values for a player: their dimension and permission level applied over the snapshot.
+     * Must not be modified.
+     */
+    public static ConfigValues resolve(ConfigSnapshot snapshot, ServerPlayer player) {
+        return resolve(snapshot, player.level().dimension(), player.server.getProfilePermissions(player.getGameProfile()));
+    }
+
+    /**
+     * Effective values of a dimension. Must not be modified.
+     */
+    public static ConfigValues resolve(ConfigSnapshot snapshot, ResourceKey<Level> dimension) {
+        ConfigValues layer = dimensions.get(dimension);
+        if (layer == null) return snapshot.values();
+        Resolved cached = dimensionViews.get(dimension);
+        if (cached != null && cached.base() == snapshot.values() && cached.layer() == layer) return cached.values();
+        Resolved resolved = Resolved.of(snapshot.values(), layer);
+        dimensionViews.put(dimension, resolved);
+        return resolved.values();
+    }
+
+    /**
+     * Effective values of a permission level in a dimension. Must not be modified.
+     */
+    public static ConfigValues resolve(ConfigSnapshot snapshot, ResourceKey<Level> dimension, int group) {
+        ConfigValues base = resolve(snapshot, dimension);
+        ConfigValues layer = groups.get(group);
+        if (layer == null) return base;
+        ViewKey key = new ViewKey(dimension, group);
+        Resolved cached = playerViews.get(key);
+        if (cached != null && cached.base() == base && cached.layer() == layer) return cached.values();
+        Resolved resolved = Resolved.of(base, layer);
+        playerViews.put(key, resolved);
+        return resolved.values();
+    }
+
+    @SubscribeEvent
+    public static void onServerAboutToStart(ServerAboutToStartEvent event) {
+        load(FMLPaths.CONFIGDIR.get().resolve(MODID + "-overlays.toml"));
+    }
+
+    /**
+     * Replace all overlays with the ones in a TOML file. Does nothing if the file does not exist.
+     */
+    public static void load(Path path) {
+        clear();
+        if (!Files.exists(path)) return;
+        try (FileConfig file = FileConfig.of(path)) {
+            file.load();
+            if (file.get("dimension") instanceof Config section) {
+                section.valueMap().forEach((name, value) -> {
+                    ResourceLocation location = ResourceLocation.tryParse(name);
+                    if (location == null || !(value instanceof Config overlay)) {
+                        LOGGER.error("Invalid dimension overlay {}", name);
+                        return;
+                    }
+                    setDimension(ResourceKey.create(Registries.DIMENSION, location), read(name, overlay));
+                });
+            }
+            if (file.get("group") instanceof Config section) {
+                section.valueMap().forEach((name, value) -> {
+                    try {
+                        if (!(value instanceof Config overlay)) throw new NumberFormatException();
+                        setGroup(Integer.parseInt(name), read(name, overlay));
+                    } catch (NumberFormatException e) {
+                        LOGGER.error("Invalid group overlay {}, expected a permission level", name);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to load config overlays from {}", path, e);
+        }
+        LOGGER.info("Loaded {} dimension and {} group config overlay(s)", dimensions.size(), groups.size());
+    }
+
+    private static ConfigValues read(String layer, Config overlay) {
+        ConfigValues values = new ConfigValues(ConfigManager.schema());
+        overlay.valueMap().forEach((key, value) -> {
+            try {
+                if (!values.set(key, value)) LOGGER.error("Unknown config key {} in overlay {}", key, layer);
+            } catch (RuntimeException e) {
+                LOGGER.error("Invalid value {} for {} in overlay {}", value, key, layer);
+            }
+        });
+        return values;
+    }
+
+    private record ViewKey(ResourceKey<Level> dimension, int group) {
+    }
+
+    private record Resolved(ConfigValues base, ConfigValues layer, ConfigValues values) {
+        static Resolved of(ConfigValues base, ConfigValues layer) {
+            ConfigValues values = base.copy();
+            values.putAll(layer);
+            return new Resolved(base, layer, values);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.flechazo.jinchancygale.config;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.io.WritingMode;
+import com.electronwill.nightconfig.toml.TomlFormat;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.config.ModConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind persistence of applied config changes.
+ * Setting a spec value saves the whole file on the calling thread, so changes are queued instead,
+ * coalesced per key, and written on a single I/O thread through a temp file and an atomic rename.
+ * The file watcher then reloads the spec from the written file; until that reload shows the written value,
+ * the key stays pending so an earlier reload of the old file cannot revert it.
+ */
+public class ConfigPersister {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long DELAY_MILLIS = 500;
+    private static final long FLUSH_TIMEOUT_SECONDS = 10;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+    // a written value not seen by a reload by then was overwritten on disk, let the file win
+    private static final long CONFIRM_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "JinchancyGale Config Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // spec path -> latest value, guarded by the class lock
+    private static final Map<List<String>, Object> pending = new LinkedHashMap<>();
+    // spec path -> value on disk that the spec has not reloaded yet, guarded by the class lock
+    private static final Map<List<String>, Written> written = new HashMap<>();
+    private static ScheduledFuture<?> scheduled = null;
+    // failed writes in a row, guarded by the class lock
+    private static int failures = 0;
+    private static volatile ModConfig config = null;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConfigPersister::flush, "JinchancyGale Config Flush"));
+    }
+
+    public static void bind(ModConfig modConfig) {
+        config = modConfig;
+    }
+
+    /**
+     * Queue a value to be written; a later value for the same key replaces it.
+     */
+    public static synchronized void write(ConfigEntry entry, Object value) {
+        pending.put(entry.value().getPath(), value);
+        if (scheduled == null) {
+            scheduled = EXECUTOR.schedule(ConfigPersister::writePending, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return Spec paths with values not yet on disk or not yet reloaded; a reload must not overwrite these with the stale file
+     *         unless {@link #confirm} says otherwise
+     */
+    public static synchronized Set<List<String>> pendingPaths() {
+        if (pending.isEmpty() && written.isEmpty()) return Set.of();
+        Set<List<String>> paths = new HashSet<>(pending.keySet());
+        paths.addAll(written.keySet());
+        return paths;
+    }
+
+    /**
+     * Check a reloaded spec value against what was written for its path.
+     *
+     * @return True if the reload may apply the value: it is the written one, or the write is too old to still be in flight
+     */
+    public static synchronized boolean confirm(List<String> path, Object specValue) {
+        if (pending.containsKey(path)) return false;
+        Written write = written.get(path);
+        if (write == null) return true;
+        if (!Objects.equals(write.value(), specValue) && System.nanoTime() - write.at() < CONFIRM_TIMEOUT_NANOS) return false;
+        written.remove(path);
+        return true;
+    }
+
+    /**
+     * Write pending changes now and wait for the write to finish.
+     */
+    public static void flush() {
+        try {
+            EXECUTOR.submit(ConfigPersister::writePending).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            LOGGER.error("Failed to flush config changes", e);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        flush();
+    }
+
+    // runs on the writer thread
+    private static void writePending() {
+        Map<List<String>, Object> batch;
+        synchronized (ConfigPersister.class) {
+            scheduled = null;
+            if (pending.isEmpty()) return;
+            batch = new LinkedHashMap<>(pending);
+        }
+        ModConfig modConfig = config;
+        if (modConfig == null) {
+            LOGGER.warn("Config file is not loaded yet, keeping {} pending change(s)", batch.size());
+            retry();
+            return;
+        }
+
+        CommentedConfig data = CommentedConfig.copy(modConfig.getConfigData());
+        batch.forEach(data::set);
+        Path target = modConfig.getFullPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            TomlFormat.instance().createWriter().write(data, temp, WritingMode.REPLACE);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to write config file {}", target, e);
+            retry(); // the changes stay pending
+            return;
+        }
+
+        long now = System.nanoTime();
+        synchronized (ConfigPersister.class) {
+            failures = 0;
+            // wait for the reload of what was written, unless a newer value arrived meanwhile
+            batch.forEach((path, value) -> {
+                if (pending.remove(path, value)) written.put(path, new Written(value, now));
+            });
+        }
+        LOGGER.debug("Wrote {} config change(s) to {}", batch.size(), target);
+    }
+
+    // try again later, backing off while the write keeps failing
+    private static synchronized void retry() {
+        failures++;
+        if (scheduled != null) return; // a newer change already scheduled a write
+        long delay = Math.min(DELAY_MILLIS << Math.min(failures, 6), MAX_RETRY_MILLIS);
+        scheduled = EXECUTOR.schedule(ConfigPersister::writePending, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private record Written(Object value, long at) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.flechazo.jinchancygale.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+/**
+ * Source of config definitions.
+ * The build generates {@value #GENERATED} from the module annotations; scanning and reflection
+ * are only used when the generated registry is missing, e.g. when annotation processing is off in an IDE.
+ */
+public interface ConfigRegistry {
+    String GENERATED = "com.flechazo.jinchancygale.config.generated.GeneratedConfigRegistry";
+
+    static ConfigRegistry load() {
+        try {
+            return (ConfigRegistry) Class.forName(GENERATED).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            Logger logger = LogManager.getLogger();
+            logger.warn("Generated config registry not found, falling back to scanning config modules");
+            return new ReflectiveConfigRegistry();
+        }
+    }
+
+    List<ConfigDefinition> definitions();
+
+    /**
+     * @return Schema hash computed at build time, or 0 if unknown
+     */
+    default int schemaHash() {
+        return 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.flechazo.jinchancygale.config;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.LogicalSidedProvider;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces config file reloads: a burst of writes results in a single apply on the game thread.
+ */
+public class ConfigReloader {
+    private static final long DEBOUNCE_MILLIS = 250;
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "JinchancyGale Config Reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static ScheduledFuture<?> pending = null;
+
+    /**
+     * Schedule a reload, replacing one that has not run yet.
+     *
+     * @param task Reload to run on the game thread once writes settle
+     */
+    public static synchronized void schedule(Runnable task) {
+        if (pending != null) pending.cancel(false);
+        pending = EXECUTOR.schedule(() -> runOnGameThread(task), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void runOnGameThread(Runnable task) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            server.execute(task);
+        } else if (FMLEnvironment.dist.isClient()) {
+            LogicalSidedProvider.WORKQUEUE.get(LogicalSide.CLIENT).execute(task);
+        } else {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Global config revision counter with a bounded log of which keys changed in which revision.
+ * Every applied batch of changes bumps the revision once.
+ */
+public final class ConfigRevisions {
+    private static final int LOG_CAPACITY = 1024;
+
+    private final ArrayDeque<Change> log = new ArrayDeque<>();
+    private long revision = 0;
+    // newest revision that has been dropped from the log
+    private long evicted = 0;
+
+    public synchronized long current() {
+        return revision;
+    }
+
+    /**
+     * Record a batch of changed keys as one revision.
+     *
+     * @param keys Keys changed by the batch
+     * @return Revision after the batch
+     */
+    public synchronized long commit(Collection<String> keys) {
+        if (keys.isEmpty()) return revision;
+        revision++;
+        for (String key : keys) {
+            if (log.size() == LOG_CAPACITY) {
+                evicted = log.pollFirst().revision();
+            }
+            log.addLast(new Change(revision, key));
+        }
+        return revision;
+    }
+
+    /**
+     * Compute the keys changed after the given revision.
+     *
+     * @param since Last revision the receiver has seen, negative if none
+     * @return Delta to the current revision; {@link Delta#keys()} is null when the log no longer reaches back that far
+     */
+    public synchronized Delta since(long since) {
+        return since(since, revision);
+    }
+
+    /**
+     * Compute the keys changed after one revision up to and including another,
+     * so a delta can match a {@link ConfigSnapshot} while newer batches are being committed.
+     *
+     * @param since Last revision the receiver has seen, negative if none
+     * @param until Revision the delta ends at
+     */
+    public synchronized Delta since(long since, long until) {
+        if (since < 0 || since > until || since < evicted) return new Delta(until, null);
+        Set<String> keys = new HashSet<>();
+        Iterator<Change> iterator = log.descendingIterator();
+        while (iterator.hasNext()) {
+            Change change = iterator.next();
+            if (change.revision() <= since) break;
+            if (change.revision() <= until) keys.add(change.key());
+        }
+        return new Delta(until, keys);
+    }
+
+    public record Delta(long revision, Set<String> keys) {
+        public boolean isFull() {
+            return keys == null;
+        }
+    }
+
+    private record Change(long revision, String key) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable registry of all config entries with O(1) lookup by key.
+ * Shared entries come first, ordered by key, so an entry's id is stable on both sides;
+ * {@link ConfigEntry#local() local} entries follow and are left out of the hash.
+ */
+public final class ConfigSchema {
+    public static final ConfigSchema EMPTY = new ConfigSchema(List.of());
+
+    private final List<ConfigEntry> entries;
+    private final Map<String, Integer> ids;
+    private final int hash;
+    private final int sharedSize;
+
+    public ConfigSchema(List<ConfigEntry> entries) {
+        List<ConfigEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(ConfigEntry::local).thenComparing(ConfigEntry::name));
+        Map<String, Integer> ids = new HashMap<>();
+        int hash = 1;
+        int sharedSize = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            ConfigEntry entry = sorted.get(i);
+            if (entry.id() != i) {
+                throw new IllegalStateException("Config key " + entry.name() + " has id " + entry.id() + ", expected " + i);
+            }
+            if (ids.putIfAbsent(entry.name(), i) != null) {
+                throw new IllegalStateException("Duplicate config key: " + entry.name());
+            }
+            if (entry.local()) continue;
+            sharedSize++;
+            hash = 31 * hash + entry.name().hashCode();
+            hash = 31 * hash + entry.type().getName().hashCode();
+        }
+        this.entries = List.copyOf(sorted);
+        this.ids = Map.copyOf(ids);
+        this.hash = hash;
+        this.sharedSize = sharedSize;
+    }
+
+    public ConfigEntry get(String key) {
+        Integer id = ids.get(key);
+        return id != null ? entries.get(id) : null;
+    }
+
+    public ConfigEntry get(int id) {
+        return id >= 0 && id < entries.size() ? entries.get(id) : null;
+    }
+
+    /**
+     * @return Id of the key, or -1 if unknown
+     */
+    public int idOf(String key) {
+        Integer id = ids.get(key);
+        return id != null ? id : -1;
+    }
+
+    public boolean contains(String key) {
+        return ids.containsKey(key);
+    }
+
+    public List<ConfigEntry> entries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Number of shared entries; their ids are {@code 0} to {@code sharedSize() - 1} on both sides
+     */
+    public int sharedSize() {
+        return sharedSize;
+    }
+
+    /**
+     * Hash of shared key names and types, used to check both sides share the same schema.
+     */
+    public int hash() {
+        return hash;
+    }
+}
@@ -0,0 +1,71 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Immutable view of all config values at one revision.
+ * A new snapshot is built copy-on-write for every applied batch and published with a single volatile write,
+ * so readers on any thread see either the whole batch or none of it.
+ *
+ * @param revision Revision the values belong to
+ * @param values   Values of every key; must not be modified
+ * @param changed  Keys changed by the batch that produced this snapshot
+ */
+public record ConfigSnapshot(long revision, ConfigValues values, Set<String> changed) {
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(0, new ConfigValues(ConfigSchema.EMPTY), Set.of());
+
+    public ConfigSchema schema() {
+        return values.schema();
+    }
+
+    /**
+     * @return Same revision and changed keys over other values, such as a resolved overlay view
+     */
+    public ConfigSnapshot withValues(ConfigValues values) {
+        return values == this.values ? this : new ConfigSnapshot(revision, values, changed);
+    }
+
+    /**
+     * @param getAll Whether to include keys marked {@link com.flechazo.jinchancygale.config.flag.DoNotSync}
+     * @return Mutable copy of the values, without {@link ConfigEntry#local() local} keys
+     */
+    public ConfigValues createSyncData(boolean getAll) {
+        ConfigValues data = values.copy();
+        for (ConfigEntry entry : schema().entries()) {
+            if (entry.local() || !getAll && !entry.sync()) data.remove(entry.id());
+        }
+        return data;
+    }
+
+    /**
+     * @return Mutable values holding only the given keys, without {@link ConfigEntry#local() local} keys
+     */
+    public ConfigValues createSyncData(Collection<String> keys) {
+        ConfigValues data = new ConfigValues(schema());
+        for (String key : keys) {
+            ConfigEntry entry = schema().get(key);
+            if (entry != null && !entry.local()) data.copy(entry.id(), values);
+        }
+        return data;
+    }
+
+    /**
+     * @param scopes {@code module:} or {@code category:} followed by a name
+     * @return Mutable values of the shared keys in any of the scopes
+     */
+    public ConfigValues createScopeData(Collection<String> scopes) {
+        ConfigValues data = new ConfigValues(schema());
+        for (ConfigEntry entry : schema().entries()) {
+            if (entry.local()) continue;
+            for (String scope : scopes) {
+                if (scope.startsWith("module:") ? entry.module().equals(scope.substring(7)) :
+                        scope.startsWith("category:") && entry.categories().contains(scope.substring(9))) {
+                    data.copy(entry.id(), values);
+                    break;
+                }
+            }
+        }
+        return data;
+    }
+}
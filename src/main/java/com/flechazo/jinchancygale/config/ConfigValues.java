@@ -0,0 +1,222 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Config values stored in primitive slots indexed by schema id.
+ * Booleans, ints, longs and doubles (as raw bits) share one {@code long[]}, strings live in a separate array.
+ * Values may be sparse: only ids marked present carry a value, so the same type serves full snapshots and deltas.
+ * <p>
+ * Iterate present ids with {@code for (int id = values.nextId(0); id >= 0; id = values.nextId(id + 1))}.
+ */
+public final class ConfigValues {
+    private final ConfigSchema schema;
+    private final long[] primitives;
+    private final Object[] objects;
+    private final BitSet present;
+
+    public ConfigValues(ConfigSchema schema) {
+        this(schema, new long[schema.size()], new Object[schema.size()], new BitSet(schema.size()));
+    }
+
+    private ConfigValues(ConfigSchema schema, long[] primitives, Object[] objects, BitSet present) {
+        this.schema = schema;
+        this.primitives = primitives;
+        this.objects = objects;
+        this.present = present;
+    }
+
+    public ConfigSchema schema() {
+        return schema;
+    }
+
+    public boolean has(int id) {
+        return present.get(id);
+    }
+
+    public boolean has(String key) {
+        int id = schema.idOf(key);
+        return id >= 0 && present.get(id);
+    }
+
+    public int size() {
+        return present.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return present.isEmpty();
+    }
+
+    /**
+     * @return First present id at or after {@code from}, or -1
+     */
+    public int nextId(int from) {
+        return present.nextSetBit(from);
+    }
+
+    public boolean getBoolean(int id) {
+        return primitives[id] != 0;
+    }
+
+    public int getInt(int id) {
+        return (int) primitives[id];
+    }
+
+    public long getLong(int id) {
+        return primitives[id];
+    }
+
+    public double getDouble(int id) {
+        return Double.longBitsToDouble(primitives[id]);
+    }
+
+    public String getString(int id) {
+        return (String) objects[id];
+    }
+
+    public void setBoolean(int id, boolean value) {
+        primitives[id] = value ? 1 : 0;
+        present.set(id);
+    }
+
+    public void setInt(int id, int value) {
+        primitives[id] = value;
+        present.set(id);
+    }
+
+    public void setLong(int id, long value) {
+        primitives[id] = value;
+        present.set(id);
+    }
+
+    public void setDouble(int id, double value) {
+        primitives[id] = Double.doubleToRawLongBits(value);
+        present.set(id);
+    }
+
+    public void setString(int id, String value) {
+        objects[id] = value;
+        present.set(id);
+    }
+
+    /**
+     * Boxed read for GUI and listeners.
+     *
+     * @return Value typed after the schema, or null if absent
+     */
+    public Object get(int id) {
+        if (!present.get(id)) return null;
+        Class<?> type = schema.get(id).type();
+        if (type == boolean.class) return getBoolean(id);
+        if (type == int.class) return getInt(id);
+        if (type == long.class) return getLong(id);
+        if (type == double.class) return getDouble(id);
+        return objects[id];
+    }
+
+    public Object get(String key) {
+        int id = schema.idOf(key);
+        return id >= 0 ? get(id) : null;
+    }
+
+    /**
+     * Boxed write, coercing the value to the schema type.
+     */
+    public void set(int id, Object value) {
+        Class<?> type = schema.get(id).type();
+        if (type == boolean.class) {
+            setBoolean(id, value instanceof Boolean b ? b : Boolean.parseBoolean(value.toString()));
+        } else if (type == int.class) {
+            setInt(id, value instanceof Number n ? n.intValue() : Integer.parseInt(value.toString()));
+        } else if (type == long.class) {
+            setLong(id, value instanceof Number n ? n.longValue() : Long.parseLong(value.toString()));
+        } else if (type == double.class) {
+            setDouble(id, value instanceof Number n ? n.doubleValue() : Double.parseDouble(value.toString()));
+        } else {
+            setString(id, value.toString());
+        }
+    }
+
+    /**
+     * @return False if the key is not in the schema
+     */
+    public boolean set(String key, Object value) {
+        int id = schema.idOf(key);
+        if (id < 0 || value == null) return false;
+        set(id, value);
+        return true;
+    }
+
+    /**
+     * @return Copy of the present ids
+     */
+    public BitSet presentIds() {
+        return (BitSet) present.clone();
+    }
+
+    /**
+     * Remove every value whose id is not in the set.
+     */
+    public void retainAll(BitSet ids) {
+        for (int id = nextId(0); id >= 0; id = nextId(id + 1)) {
+            if (!ids.get(id)) remove(id);
+        }
+    }
+
+    public void remove(int id) {
+        present.clear(id);
+        objects[id] = null;
+    }
+
+    public void clear() {
+        present.clear();
+        Arrays.fill(objects, null);
+    }
+
+    /**
+     * Copy one slot from another instance of the same schema.
+     */
+    public void copy(int id, ConfigValues from) {
+        primitives[id] = from.primitives[id];
+        objects[id] = from.objects[id];
+        present.set(id);
+    }
+
+    public void putAll(ConfigValues from) {
+        for (int id = from.nextId(0); id >= 0; id = from.nextId(id + 1)) {
+            copy(id, from);
+        }
+    }
+
+    /**
+     * @return Whether both instances hold the same value at the id
+     */
+    public boolean sameValue(int id, ConfigValues other) {
+        return present.get(id) && other.present.get(id) &&
+                primitives[id] == other.primitives[id] && Objects.equals(objects[id], other.objects[id]);
+    }
+
+    /**
+     * @return Hash of the value at the id that is stable across runs, 0 if absent
+     */
+    public int valueHash(int id) {
+        if (!present.get(id)) return 0;
+        return 31 * Long.hashCode(primitives[id]) + Objects.hashCode(objects[id]);
+    }
+
+    public ConfigValues copy() {
+        return new ConfigValues(schema, primitives.clone(), objects.clone(), (BitSet) present.clone());
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        for (int id = nextId(0); id >= 0; id = nextId(id + 1)) {
+            map.put(schema.get(id).name(), get(id));
+        }
+        return map;
+    }
+}
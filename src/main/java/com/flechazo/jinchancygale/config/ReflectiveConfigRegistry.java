@@ -0,0 +1,76 @@
+package com.flechazo.jinchancygale.config;
+
+import com.flechazo.jinchancygale.JinchancyGale;
+import com.flechazo.jinchancygale.config.flag.*;
+import com.flechazo.jinchancygale.util.ClassLoaderUtil;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds config definitions by scanning config modules and reading their annotations at runtime.
+ */
+public class ReflectiveConfigRegistry implements ConfigRegistry {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    @Override
+    @SuppressWarnings("deprecation") // category() is the fallback for modules that still override it
+    public List<ConfigDefinition> definitions() {
+        final List<ConfigDefinition> definitions = new ArrayList<>();
+        for (ConfigModule module : ClassLoaderUtil.loadClasses(JinchancyGale.MODID, ConfigModuleMarker.class, ConfigModule.class,
+                ReflectiveConfigRegistry::onThisSide)) {
+            ConfigModuleMarker marker = module.getClass().getAnnotation(ConfigModuleMarker.class);
+            List<String> categories = List.of(marker != null && marker.category().length > 0 ? marker.category() : module.category());
+            boolean local = marker != null && !Arrays.asList(marker.side()).containsAll(Arrays.asList(Dist.values()));
+            // load single instance field
+            for (Field field : module.getClass().getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                    boolean skipLoad = field.getAnnotation(DoNotLoad.class) != null;
+                    ConfigInfo configInfo = field.getAnnotation(ConfigInfo.class);
+                    RangeFlag rangeFlag = field.getAnnotation(RangeFlag.class);
+
+                    if (skipLoad || configInfo == null) {
+                        continue;
+                    }
+
+                    try {
+                        Class<?> type = field.getType();
+                        Number min = rangeFlag != null ? parseBound(type, rangeFlag.min()) : null;
+                        Number max = rangeFlag != null ? parseBound(type, rangeFlag.max()) : null;
+                        definitions.add(new ConfigDefinition(module, categories, field.getName(), configInfo.name(), configInfo.comment(), type,
+                                min, max, field.getAnnotation(DoNotSync.class) == null, local, ConfigAccessor.of(field)));
+                    } catch (IllegalAccessException e) {
+                        LOGGER.error("Error loading config field: {}", field.getName());
+                    } catch (NumberFormatException e) {
+                        LOGGER.error("Invalid range on config field: {}", field.getName());
+                    }
+                }
+            }
+        }
+        return definitions;
+    }
+
+    private static boolean onThisSide(Class<?> clazz) {
+        ConfigModuleMarker marker = clazz.getAnnotation(ConfigModuleMarker.class);
+        return marker == null || Arrays.asList(marker.side()).contains(FMLEnvironment.dist);
+    }
+
+    private static Number parseBound(Class<?> type, String bound) {
+        if (type == int.class) {
+            return Integer.parseInt(bound);
+        } else if (type == long.class) {
+            return Long.parseLong(bound);
+        } else if (type == double.class) {
+            return Double.parseDouble(bound);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.flechazo.jinchancygale.config.flag;
+
+import net.minecraftforge.api.distmarker.Dist;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link com.flechazo.jinchancygale.config.ConfigModule} for discovery from the mod file's annotation index.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConfigModuleMarker {
+    /**
+     * Physical sides the module is loaded on. A module on one side only is never instantiated on the other,
+     * and its keys are kept out of the synced schema.
+     */
+    Dist[] side() default {Dist.CLIENT, Dist.DEDICATED_SERVER};
+
+    /**
+     * Categories of the module, used to group and fetch its keys in the config screen.
+     */
+    String[] category() default {};
+}
@@ -1,10 +1,52 @@
 package com.flechazo.jinchancygale.config.module;
 
+import com.flechazo.jinchancygale.config.ConfigListener;
+import com.flechazo.jinchancygale.config.ConfigManager;
 import com.flechazo.jinchancygale.config.ConfigModule;
+import com.flechazo.jinchancygale.config.flag.ConfigInfo;
+import com.flechazo.jinchancygale.config.flag.ConfigModuleMarker;
+import com.flechazo.jinchancygale.match.RuleMatcher;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.block.Block;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
 
+@ConfigModuleMarker(category = "match")
 public class MatchConfig implements ConfigModule {
+    public static final String NAME = "Match Config";
+    private static final String RULES = "Comma separated: ids, namespace:* or prefix* globs, other globs, /regex/, #tags";
+
+    @ConfigInfo(name = "blockRules", comment = "Block rules. " + RULES)
+    public static String blockRules = "";
+    @ConfigInfo(name = "itemRules", comment = "Item rules. " + RULES)
+    public static String itemRules = "";
+    @ConfigInfo(name = "entityRules", comment = "Entity rules. " + RULES)
+    public static String entityRules = "";
+
+    public static final RuleMatcher<Block> BLOCKS = new RuleMatcher<>(BuiltInRegistries.BLOCK, () -> blockRules);
+    public static final RuleMatcher<Item> ITEMS = new RuleMatcher<>(BuiltInRegistries.ITEM, () -> itemRules);
+    public static final RuleMatcher<EntityType<?>> ENTITIES = new RuleMatcher<>(BuiltInRegistries.ENTITY_TYPE, () -> entityRules);
+
+    static {
+        // recompile on the next match after any rule changes
+        ConfigManager.subscribeModule(NAME, ConfigListener.Dispatch.IMMEDIATE, changes -> invalidate());
+    }
+
     @Override
     public String name() {
-        return "Match Config";
+        return NAME;
+    }
+
+    public static void invalidate() {
+        BLOCKS.invalidate();
+        ITEMS.invalidate();
+        ENTITIES.invalidate();
+    }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        invalidate(); // tag contents are resolved at compile time
     }
 }
@@ -0,0 +1,38 @@
+package com.flechazo.jinchancygale.config.value;
+
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigOverlays;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+/**
+ * Handle to a boolean config key.
+ */
+public final class BooleanConfig extends TypedConfig {
+    private BooleanConfig(String key) {
+        super(key, boolean.class);
+    }
+
+    public static BooleanConfig of(String key) {
+        return new BooleanConfig(key);
+    }
+
+    public boolean getAsBoolean() {
+        return ConfigManager.values().getBoolean(id);
+    }
+
+    /**
+     * Value in effect in a dimension, with its overlay applied.
+     */
+    public boolean getAsBoolean(ResourceKey<Level> dimension) {
+        return ConfigOverlays.resolve(dimension).getBoolean(id);
+    }
+
+    /**
+     * Value in effect for a player, with their dimension and permission level overlays applied.
+     */
+    public boolean getAsBoolean(ServerPlayer player) {
+        return ConfigOverlays.resolve(player).getBoolean(id);
+    }
+}
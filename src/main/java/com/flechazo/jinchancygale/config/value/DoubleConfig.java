@@ -0,0 +1,38 @@
+package com.flechazo.jinchancygale.config.value;
+
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigOverlays;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+/**
+ * Handle to a double config key.
+ */
+public final class DoubleConfig extends TypedConfig {
+    private DoubleConfig(String key) {
+        super(key, double.class);
+    }
+
+    public static DoubleConfig of(String key) {
+        return new DoubleConfig(key);
+    }
+
+    public double getAsDouble() {
+        return ConfigManager.values().getDouble(id);
+    }
+
+    /**
+     * Value in effect in a dimension, with its overlay applied.
+     */
+    public double getAsDouble(ResourceKey<Level> dimension) {
+        return ConfigOverlays.resolve(dimension).getDouble(id);
+    }
+
+    /**
+     * Value in effect for a player, with their dimension and permission level overlays applied.
+     */
+    public double getAsDouble(ServerPlayer player) {
+        return ConfigOverlays.resolve(player).getDouble(id);
+    }
+}
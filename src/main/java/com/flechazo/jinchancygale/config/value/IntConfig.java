@@ -0,0 +1,38 @@
+package com.flechazo.jinchancygale.config.value;
+
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigOverlays;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+/**
+ * Handle to a int config key.
+ */
+public final class IntConfig extends TypedConfig {
+    private IntConfig(String key) {
+        super(key, int.class);
+    }
+
+    public static IntConfig of(String key) {
+        return new IntConfig(key);
+    }
+
+    public int getAsInt() {
+        return ConfigManager.values().getInt(id);
+    }
+
+    /**
+     * Value in effect in a dimension, with its overlay applied.
+     */
+    public int getAsInt(ResourceKey<Level> dimension) {
+        return ConfigOverlays.resolve(dimension).getInt(id);
+    }
+
+    /**
+     * Value in effect for a player, with their dimension and permission level overlays applied.
+     */
+    public int getAsInt(ServerPlayer player) {
+        return ConfigOverlays.resolve(player).getInt(id);
+    }
+}
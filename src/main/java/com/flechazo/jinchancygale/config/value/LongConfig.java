@@ -0,0 +1,38 @@
+package com.flechazo.jinchancygale.config.value;
+
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigOverlays;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+/**
+ * Handle to a long config key.
+ */
+public final class LongConfig extends TypedConfig {
+    private LongConfig(String key) {
+        super(key, long.class);
+    }
+
+    public static LongConfig of(String key) {
+        return new LongConfig(key);
+    }
+
+    public long getAsLong() {
+        return ConfigManager.values().getLong(id);
+    }
+
+    /**
+     * Value in effect in a dimension, with its overlay applied.
+     */
+    public long getAsLong(ResourceKey<Level> dimension) {
+        return ConfigOverlays.resolve(dimension).getLong(id);
+    }
+
+    /**
+     * Value in effect for a player, with their dimension and permission level overlays applied.
+     */
+    public long getAsLong(ServerPlayer player) {
+        return ConfigOverlays.resolve(player).getLong(id);
+    }
+}
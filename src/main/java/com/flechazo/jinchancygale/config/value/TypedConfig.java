@@ -0,0 +1,28 @@
+package com.flechazo.jinchancygale.config.value;
+
+import com.flechazo.jinchancygale.config.ConfigEntry;
+import com.flechazo.jinchancygale.config.ConfigManager;
+
+/**
+ * Handle to a config key resolved once to its value slot.
+ * Reads go straight to the primitive slot of the current values, without boxing or lookups.
+ */
+public abstract class TypedConfig {
+    protected final int id;
+    private final String key;
+
+    protected TypedConfig(String key, Class<?> type) {
+        ConfigEntry entry = ConfigManager.getEntry(key);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown config key: " + key);
+        } else if (entry.type() != type) {
+            throw new IllegalArgumentException("Config key " + key + " is " + entry.type().getName() + ", not " + type.getName());
+        }
+        this.id = entry.id();
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
@@ -1,11 +1,35 @@
 package com.flechazo.jinchancygale.event;
 
+import com.flechazo.jinchancygale.client.ClientConfigCache;
 import com.flechazo.jinchancygale.command.ConfigCommand;
+import com.flechazo.jinchancygale.config.ConfigOverlays;
+import com.flechazo.jinchancygale.config.ConfigPersister;
+import com.flechazo.jinchancygale.config.module.MatchConfig;
+import com.flechazo.jinchancygale.network.NetworkHandler;
+import com.flechazo.jinchancygale.network.module.ConfigRequestLimiter;
+import com.flechazo.jinchancygale.network.module.ConfigSyncTracker;
+import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.loading.FMLEnvironment;
 
 public class EventManager {
     public static void register() {
         // Command register
         MinecraftForge.EVENT_BUS.register(ConfigCommand.class);
+        // Config sync state
+        MinecraftForge.EVENT_BUS.register(ConfigSyncTracker.class);
+        // Rate limit and coalesce inbound config requests
+        MinecraftForge.EVENT_BUS.register(ConfigRequestLimiter.class);
+        // Flush bundled packets at tick end
+        MinecraftForge.EVENT_BUS.register(NetworkHandler.class);
+        // Flush config writes on shutdown
+        MinecraftForge.EVENT_BUS.register(ConfigPersister.class);
+        // Load dimension and permission level overlays
+        MinecraftForge.EVENT_BUS.register(ConfigOverlays.class);
+        // Recompile match rules when tags change
+        MinecraftForge.EVENT_BUS.register(MatchConfig.class);
+        if (FMLEnvironment.dist == Dist.CLIENT) {
+            MinecraftForge.EVENT_BUS.register(ClientConfigCache.class);
+        }
     }
 }
@@ -0,0 +1,152 @@
+package com.flechazo.jinchancygale.match;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Rule list compiled against one registry.
+ * <p>
+ * Rules are separated by commas or whitespace:
+ * <ul>
+ *     <li>{@code minecraft:stone} exact id, the namespace defaults to {@code minecraft}</li>
+ *     <li>{@code create:*} or {@code minecraft:oak_*} namespace wildcard or prefix glob</li>
+ *     <li>{@code *_log} or {@code minecraft:?_wool} any other glob</li>
+ *     <li>{@code /regex/} regex over the full id</li>
+ *     <li>{@code #minecraft:logs} tag</li>
+ * </ul>
+ * Exact ids go into a hash set, prefixes into a trie, globs and regexes into one alternation pattern,
+ * and tags into a bit set over registry ids. Results are cached per registry id.
+ */
+public class CompiledRules<T> {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final byte UNKNOWN = 0;
+    private static final byte MATCH = 1;
+    private static final byte NO_MATCH = 2;
+
+    private final Registry<T> registry;
+    private final Set<ResourceLocation> exact = new HashSet<>();
+    private final PrefixTrie prefixes = new PrefixTrie();
+    private final Pattern pattern;
+    private final BitSet tagged = new BitSet();
+    private final boolean empty;
+    // result by registry id; racy writes are fine since every thread computes the same result
+    private final byte[] cache;
+
+    public CompiledRules(Registry<T> registry, String rules) {
+        this.registry = registry;
+        this.cache = new byte[registry.size()];
+        List<String> patterns = new ArrayList<>();
+        List<TagKey<T>> tags = new ArrayList<>();
+
+        for (String rule : tokenize(rules)) {
+            if (rule.startsWith("/")) {
+                String regex = rule.substring(1, rule.length() - (rule.length() > 1 && rule.endsWith("/") ? 1 : 0));
+                try {
+                    Pattern.compile(regex);
+                    patterns.add(regex);
+                } catch (PatternSyntaxException e) {
+                    LOGGER.error("Invalid regex rule {}: {}", rule, e.getDescription());
+                }
+            } else if (rule.startsWith("#")) {
+                ResourceLocation location = ResourceLocation.tryParse(rule.substring(1));
+                if (location != null) {
+                    tags.add(TagKey.create(registry.key(), location));
+                } else {
+                    LOGGER.error("Invalid tag rule {}", rule);
+                }
+            } else if (rule.indexOf('*') < 0 && rule.indexOf('?') < 0) {
+                ResourceLocation location = ResourceLocation.tryParse(rule);
+                if (location != null) {
+                    exact.add(location);
+                } else {
+                    LOGGER.error("Invalid id rule {}", rule);
+                }
+            } else if (rule.indexOf('*') == rule.length() - 1 && rule.indexOf('?') < 0 && rule.indexOf(':') >= 0) {
+                prefixes.add(rule.substring(0, rule.length() - 1));
+            } else {
+                patterns.add(globToRegex(rule));
+            }
+        }
+
+        this.pattern = patterns.isEmpty() ? null : Pattern.compile(String.join("|", patterns.stream().map(p -> "(?:" + p + ")").toList()));
+        for (TagKey<T> tag : tags) {
+            for (Holder<T> holder : registry.getTagOrEmpty(tag)) {
+                int id = registry.getId(holder.value());
+                if (id >= 0) tagged.set(id);
+            }
+        }
+        this.empty = exact.isEmpty() && prefixes.isEmpty() && pattern == null && tagged.isEmpty();
+    }
+
+    public boolean matches(T value) {
+        if (empty) return false;
+        int id = registry.getId(value);
+        if (id < 0 || id >= cache.length) return compute(value, id);
+        byte cached = cache[id];
+        if (cached != UNKNOWN) return cached == MATCH;
+        boolean result = compute(value, id);
+        cache[id] = result ? MATCH : NO_MATCH;
+        return result;
+    }
+
+    private boolean compute(T value, int id) {
+        if (id >= 0 && tagged.get(id)) return true;
+        ResourceLocation location = registry.getKey(value);
+        if (location == null) return false;
+        if (exact.contains(location)) return true;
+        if (prefixes.isEmpty() && pattern == null) return false;
+        String key = location.toString();
+        return prefixes.matches(key) || pattern != null && pattern.matcher(key).matches();
+    }
+
+    // split on commas and whitespace, keeping /regex/ rules intact
+    private static List<String> tokenize(String rules) {
+        List<String> tokens = new ArrayList<>();
+        if (rules == null) return tokens;
+        int i = 0;
+        while (i < rules.length()) {
+            char c = rules.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            if (c == '/') {
+                i++;
+                while (i < rules.length() && rules.charAt(i) != '/') {
+                    if (rules.charAt(i) == '\\') i++;
+                    i++;
+                }
+                i = Math.min(i + 1, rules.length());
+            } else {
+                while (i < rules.length() && rules.charAt(i) != ',' && !Character.isWhitespace(rules.charAt(i))) i++;
+            }
+            tokens.add(rules.substring(start, i));
+        }
+        return tokens;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        if (glob.indexOf(':') < 0 && glob.charAt(0) != '*') regex.append("minecraft:");
+        int literal = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literal) regex.append(Pattern.quote(glob.substring(literal, i)));
+                regex.append(c == '*' ? ".*" : ".");
+                literal = i + 1;
+            }
+        }
+        if (literal < glob.length()) regex.append(Pattern.quote(glob.substring(literal)));
+        return regex.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.flechazo.jinchancygale.match;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+
+/**
+ * Character trie answering whether any inserted prefix starts a string, in time linear in the string length.
+ */
+public class PrefixTrie {
+    private final Node root = new Node();
+    private boolean empty = true;
+
+    public void add(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), key -> new Node());
+        }
+        node.terminal = true;
+        empty = false;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return Whether some inserted prefix is a prefix of the value
+     */
+    public boolean matches(String value) {
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.terminal) return true;
+            if (i == value.length()) return false;
+            node = node.children.get(value.charAt(i));
+            if (node == null) return false;
+        }
+    }
+
+    private static final class Node {
+        private final Char2ObjectOpenHashMap<Node> children = new Char2ObjectOpenHashMap<>(2);
+        private boolean terminal = false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.flechazo.jinchancygale.match;
+
+import net.minecraft.core.Registry;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Matcher over a rule list held in a config field.
+ * The rules are compiled on first use and dropped by {@link #invalidate()} when the config or tags change,
+ * so a match is a cache lookup in the common case.
+ */
+public class RuleMatcher<T> {
+    private final Registry<T> registry;
+    private final Supplier<String> rules;
+    // every invalidation starts a new generation, so rules compiled from an older one are never stored
+    private final AtomicReference<State<T>> state = new AtomicReference<>(new State<>(0, null));
+
+    public RuleMatcher(Registry<T> registry, Supplier<String> rules) {
+        this.registry = registry;
+        this.rules = rules;
+    }
+
+    public boolean matches(T value) {
+        State<T> current = state.get();
+        CompiledRules<T> compiled = current.compiled();
+        if (compiled == null) {
+            compiled = new CompiledRules<>(registry, rules.get());
+            state.compareAndSet(current, new State<>(current.generation(), compiled));
+        }
+        return compiled.matches(value);
+    }
+
+    public void invalidate() {
+        state.updateAndGet(current -> new State<>(current.generation() + 1, null));
+    }
+
+    private record State<T>(int generation, CompiledRules<T> compiled) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.flechazo.jinchancygale.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for config applies and config packet traffic.
+ * Recording is lock-free and cheap enough to stay on in production; read with {@link #report()}.
+ */
+public class ConfigMetrics {
+    // indexed by ConfigPacket type
+    private static final String[] PACKET_TYPES = {"update", "sync", "resync_request", "resync_response", "ack", "push", "hello", "hello_response", "fetch", "fetch_response"};
+
+    public static final LatencyHistogram LOAD = new LatencyHistogram();
+    public static final LatencyHistogram SYNC = new LatencyHistogram();
+    private static final LongAdder changedKeys = new LongAdder();
+    private static final LongAdder fullResyncs = new LongAdder();
+    private static final LongAdder[] packetsIn = adders();
+    private static final LongAdder[] bytesIn = adders();
+    private static final LongAdder[] packetsOut = adders();
+    private static final LongAdder[] bytesOut = adders();
+    private static final LongAdder recipients = new LongAdder();
+    private static final LongAdder throttled = new LongAdder();
+    private static final LongAdder coalesced = new LongAdder();
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[PACKET_TYPES.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static void recordApply(LatencyHistogram histogram, long startNanos, int changed) {
+        histogram.record(System.nanoTime() - startNanos);
+        changedKeys.add(changed);
+    }
+
+    /**
+     * A config packet was decoded.
+     */
+    public static void recordIn(int type, int bytes) {
+        if (type < 0 || type >= PACKET_TYPES.length) return;
+        packetsIn[type].increment();
+        bytesIn[type].add(bytes);
+    }
+
+    /**
+     * A config packet was encoded. Broadcasts encode once for all recipients, see {@link #recordRecipients}.
+     */
+    public static void recordOut(int type, int bytes) {
+        if (type < 0 || type >= PACKET_TYPES.length) return;
+        packetsOut[type].increment();
+        bytesOut[type].add(bytes);
+    }
+
+    public static void recordRecipients(int count) {
+        recipients.add(count);
+    }
+
+    /**
+     * A client fell out of step and asked for a full snapshot.
+     */
+    public static void recordFullResync() {
+        fullResyncs.increment();
+    }
+
+    /**
+     * An inbound config packet was dropped because the sender exceeded their rate.
+     */
+    public static void recordThrottled() {
+        throttled.increment();
+    }
+
+    /**
+     * An inbound update or resync request was merged into one already pending.
+     */
+    public static void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(format("load", LOAD));
+        lines.add(format("sync", SYNC));
+        lines.add("changed keys: " + changedKeys.sum() + ", full resyncs: " + fullResyncs.sum() + ", broadcast recipients: " + recipients.sum());
+        lines.add("throttled requests: " + throttled.sum() + ", coalesced requests: " + coalesced.sum());
+        for (int i = 0; i < PACKET_TYPES.length; i++) {
+            long in = packetsIn[i].sum();
+            long out = packetsOut[i].sum();
+            if (in == 0 && out == 0) continue;
+            lines.add(PACKET_TYPES[i] + ": in " + in + " (" + bytesIn[i].sum() + " B), out " + out + " (" + bytesOut[i].sum() + " B)");
+        }
+        return lines;
+    }
+
+    private static String format(String name, LatencyHistogram histogram) {
+        return String.format("%s: %d, mean %.3f ms, p50 <%.3f ms, p99 <%.3f ms, max %.3f ms", name, histogram.count(),
+                millis(histogram.meanNanos()), millis(histogram.percentileNanos(0.5)), millis(histogram.percentileNanos(0.99)),
+                millis(histogram.maxNanos()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public static void reset() {
+        LOAD.reset();
+        SYNC.reset();
+        changedKeys.reset();
+        fullResyncs.reset();
+        recipients.reset();
+        throttled.reset();
+        coalesced.reset();
+        for (int i = 0; i < PACKET_TYPES.length; i++) {
+            packetsIn[i].reset();
+            bytesIn[i].reset();
+            packetsOut[i].reset();
+            bytesOut[i].reset();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.flechazo.jinchancygale.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets.
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to a factor of two.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(Math.max(0, 63 - Long.numberOfLeadingZeros(nanos))); // bucket i holds [2^i, 2^(i+1))
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : total.sum() / count;
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile Quantile between 0 and 1
+     * @return Upper bound of the bucket holding the quantile, 0 when empty
+     */
+    public long percentileNanos(double quantile) {
+        long count = count();
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) return i == 63 ? Long.MAX_VALUE : (2L << i) - 1;
+        }
+        return maxNanos();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
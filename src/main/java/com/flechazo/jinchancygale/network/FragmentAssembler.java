@@ -0,0 +1,110 @@
+package com.flechazo.jinchancygale.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reassembles fragmented packet bodies.
+ * Buffers are bounded per stream and per connection, and streams that stop receiving fragments are dropped after a timeout,
+ * so a misbehaving peer cannot pin memory or starve other connections of stream slots.
+ */
+public class FragmentAssembler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // per connection
+    private static final int MAX_STREAMS = 8;
+    private static final long MAX_BUFFERED = 2L * PacketFrames.MAX_BODY;
+    private static final int MAX_FRAGMENTS = PacketFrames.MAX_BODY / 1024;
+
+    private final Map<Object, Streams> connections = new HashMap<>();
+
+    /**
+     * Add a fragment.
+     *
+     * @param connection Connection the fragment arrived on, streams of different connections never mix
+     * @return Complete body once the last fragment arrived, otherwise null
+     */
+    public synchronized ByteBuf accept(Object connection, int stream, int index, int count, byte[] chunk) {
+        long now = System.nanoTime();
+        expire(now);
+        Streams streams = connections.computeIfAbsent(connection, key -> new Streams());
+        Partial partial = streams.partials.get(stream);
+        if (partial == null) {
+            if (count <= 1 || count > MAX_FRAGMENTS || streams.partials.size() >= MAX_STREAMS) {
+                LOGGER.warn("Dropping fragmented packet with {} fragments, {} streams pending on the connection", count, streams.partials.size());
+                if (streams.partials.isEmpty()) connections.remove(connection);
+                return null;
+            }
+            partial = new Partial(new byte[count][], now);
+            streams.partials.put(stream, partial);
+        }
+        if (count != partial.chunks.length || index < 0 || index >= count || partial.chunks[index] != null ||
+                partial.bytes + chunk.length > PacketFrames.MAX_BODY || streams.buffered + chunk.length > MAX_BUFFERED) {
+            LOGGER.warn("Dropping malformed or oversized fragmented packet");
+            drop(connection, streams, stream, partial);
+            return null;
+        }
+        partial.chunks[index] = chunk;
+        partial.received++;
+        partial.bytes += chunk.length;
+        partial.updated = now;
+        streams.buffered += chunk.length;
+        if (partial.received < count) return null;
+
+        drop(connection, streams, stream, partial);
+        return Unpooled.wrappedBuffer(partial.chunks);
+    }
+
+    /**
+     * Drop every stream of a connection that closed.
+     */
+    public synchronized void remove(Object connection) {
+        connections.remove(connection);
+    }
+
+    private void expire(long now) {
+        Iterator<Streams> connectionIterator = connections.values().iterator();
+        while (connectionIterator.hasNext()) {
+            Streams streams = connectionIterator.next();
+            Iterator<Partial> iterator = streams.partials.values().iterator();
+            while (iterator.hasNext()) {
+                Partial partial = iterator.next();
+                if (now - partial.updated > TIMEOUT_NANOS) {
+                    streams.buffered -= partial.bytes;
+                    iterator.remove();
+                }
+            }
+            if (streams.partials.isEmpty()) connectionIterator.remove();
+        }
+    }
+
+    private void drop(Object connection, Streams streams, int stream, Partial partial) {
+        streams.partials.remove(stream);
+        streams.buffered -= partial.bytes;
+        if (streams.partials.isEmpty()) connections.remove(connection);
+    }
+
+    private static final class Streams {
+        private final Map<Integer, Partial> partials = new HashMap<>();
+        private long buffered = 0;
+    }
+
+    private static final class Partial {
+        private final byte[][] chunks;
+        private int received = 0;
+        private long bytes = 0;
+        private long updated;
+
+        private Partial(byte[][] chunks, long now) {
+            this.chunks = chunks;
+            this.updated = now;
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.flechazo.jinchancygale.network;
 
 import com.flechazo.jinchancygale.network.module.ConfigPacket;
+import net.minecraft.network.Connection;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.IEventBus;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 
+import java.util.Collection;
+
 public class NetworkHandler {
     public static void register(IEventBus bus) {
         bus.addListener(NetworkHandler::commonSetup);
@@ -14,25 +24,60 @@ public class NetworkHandler {
         NETWORK.registerPackets();
     }
 
-    private static final PacketHandler NETWORK = new PacketHandler("1.0.0") {
+    private static final PacketHandler NETWORK = new PacketHandler("1.2.0") {
         @Override
         public void registerPackets() {
-            registerPacket(ConfigPacket.class, ConfigPacket::encode, buf -> {
-                        ConfigPacket packet = new ConfigPacket(-1);
-                        packet.decode(buf);
-                        return packet;
-                    },
-                    ConfigPacket::handle);
+            // pushes to many operators in one tick share frames, see ConfigPacket#urgent
+            enableBundling();
+            // derived codec, wrapped to record metrics
+            registerPacket(ConfigPacket.class, ConfigPacket::encode, ConfigPacket::decode, ConfigPacket::handle);
         }
     };
 
-    public static void sendToServer(PacketHandler.AbstractPacket packet) {
+    // lowest priority so packets queued by other end-of-tick listeners leave this tick
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) NETWORK.flush();
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) NETWORK.disconnected(player.connection.connection);
+    }
+
+    /**
+     * Client side counterpart of the logout listener, called when leaving a server.
+     */
+    public static void disconnected(Connection connection) {
+        NETWORK.disconnected(connection);
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        NETWORK.clearPending();
+    }
+
+    public static void sendToServer(PacketHandler.ModPacket packet) {
         NETWORK.sendToServer(packet);
     }
 
-    public static void sendToClient(PacketHandler.AbstractPacket packet, ServerPlayer player) {
+    public static void sendToClient(PacketHandler.ModPacket packet, ServerPlayer player) {
         NETWORK.sendToClient(packet, player);
     }
 
+    public static int sendToAll(PacketHandler.ModPacket packet) {
+        return NETWORK.sendToAll(packet);
+    }
+
+    public static int sendToPermissionLevel(PacketHandler.ModPacket packet, int level) {
+        return NETWORK.sendToPermissionLevel(packet, level);
+    }
 
+    public static int sendToDimension(PacketHandler.ModPacket packet, ResourceKey<Level> dimension) {
+        return NETWORK.sendToDimension(packet, dimension);
+    }
+
+    public static int sendToPlayers(PacketHandler.ModPacket packet, Collection<ServerPlayer> players) {
+        return NETWORK.broadcast(packet, players, player -> true);
+    }
 }
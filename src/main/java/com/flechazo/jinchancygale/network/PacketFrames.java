@@ -0,0 +1,262 @@
+package com.flechazo.jinchancygale.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Wire format of the framed transport used by {@link PacketHandler}.
+ * <p>
+ * A packet body is {@code [varint packet index][byte compression][varint raw length if deflated][payload]}.
+ * Bodies below {@link #COMPRESSION_THRESHOLD} are written as-is, without touching the deflater.
+ * A frame carries a whole body, one fragment of it, or several small bodies bundled in send order:
+ * {@code [WHOLE][body]}, {@code [FRAGMENT][varint stream][varint index][varint count][chunk]}
+ * or {@code [BUNDLE][varint count]([varint length][body])*}.
+ */
+public final class PacketFrames {
+    public static final int COMPRESSION_THRESHOLD = 512;
+    // below the 32767 byte limit of serverbound custom payloads, so one size serves both directions
+    public static final int MAX_FRAME = 30000;
+    // largest body a stream or inflated payload may reach
+    public static final int MAX_BODY = 8 * 1024 * 1024;
+
+    static final byte WHOLE = 0;
+    static final byte FRAGMENT = 1;
+    static final byte BUNDLE = 2;
+    private static final byte RAW = 0;
+    private static final byte DEFLATE = 1;
+    // room for the fragment header
+    private static final int CHUNK = MAX_FRAME - 16;
+    // room for the bundle header
+    private static final int BUNDLE_ROOM = MAX_FRAME - 6;
+    // reset and reused per thread instead of allocating native zlib state per packet
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private PacketFrames() {
+    }
+
+    /**
+     * Encode a packet body, compressing the payload when it is large and compression pays off.
+     *
+     * @param index   Packet index
+     * @param encoder Writes the packet payload
+     * @return Pooled body buffer, to be released by the caller
+     */
+    public static ByteBuf encodeBody(int index, Consumer<FriendlyByteBuf> encoder) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(PooledByteBufAllocator.DEFAULT.heapBuffer());
+        try {
+            return writeBody(buf, index, encoder);
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    private static ByteBuf writeBody(FriendlyByteBuf buf, int index, Consumer<FriendlyByteBuf> encoder) {
+        buf.writeVarInt(index);
+        int flagAt = buf.writerIndex();
+        buf.writeByte(RAW);
+        int start = buf.writerIndex();
+        encoder.accept(buf);
+        int length = buf.writerIndex() - start;
+        if (length < COMPRESSION_THRESHOLD) return buf;
+
+        byte[] compressed = deflate(buf.nioBuffer(start, length), length);
+        if (compressed == null) return buf; // incompressible, keep it raw
+        buf.writerIndex(flagAt);
+        buf.writeByte(DEFLATE);
+        buf.writeVarInt(length);
+        buf.writeBytes(compressed);
+        return buf;
+    }
+
+    /**
+     * Split a body into frames that each fit in one custom payload.
+     *
+     * @param body   Body from {@link #encodeBody}
+     * @param stream Stream id for fragments, unique per sender
+     */
+    public static List<byte[]> split(ByteBuf body, int stream) {
+        int length = body.readableBytes();
+        List<byte[]> frames = new ArrayList<>();
+        if (length + 1 <= MAX_FRAME) {
+            byte[] frame = new byte[length + 1];
+            frame[0] = WHOLE;
+            body.getBytes(body.readerIndex(), frame, 1, length);
+            frames.add(frame);
+            return frames;
+        }
+        int count = (length + CHUNK - 1) / CHUNK;
+        for (int i = 0; i < count; i++) {
+            int offset = i * CHUNK;
+            int size = Math.min(CHUNK, length - offset);
+            // frames are written straight into their final arrays
+            byte[] frame = new byte[1 + FriendlyByteBuf.getVarIntSize(stream) + FriendlyByteBuf.getVarIntSize(i)
+                    + FriendlyByteBuf.getVarIntSize(count) + size];
+            FriendlyByteBuf out = new FriendlyByteBuf(Unpooled.wrappedBuffer(frame).writerIndex(0));
+            out.writeByte(FRAGMENT);
+            out.writeVarInt(stream);
+            out.writeVarInt(i);
+            out.writeVarInt(count);
+            out.writeBytes(body, body.readerIndex() + offset, size);
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    /**
+     * Pack queued bodies into as few frames as possible, keeping their order.
+     * Bodies too large to share a frame are split into fragments between the bundles.
+     *
+     * @param bodies  Bodies from {@link #encodeBody}, in send order
+     * @param streams Stream ids for fragments, unique per sender
+     */
+    public static List<byte[]> bundle(List<byte[]> bodies, IntSupplier streams) {
+        List<byte[]> frames = new ArrayList<>();
+        List<byte[]> batch = new ArrayList<>();
+        int size = 0;
+        for (byte[] body : bodies) {
+            int entry = FriendlyByteBuf.getVarIntSize(body.length) + body.length;
+            if (entry > BUNDLE_ROOM) {
+                writeBundle(batch, frames);
+                size = 0;
+                frames.addAll(split(Unpooled.wrappedBuffer(body), streams.getAsInt()));
+                continue;
+            }
+            if (size + entry > BUNDLE_ROOM) {
+                writeBundle(batch, frames);
+                size = 0;
+            }
+            batch.add(body);
+            size += entry;
+        }
+        writeBundle(batch, frames);
+        return frames;
+    }
+
+    private static void writeBundle(List<byte[]> batch, List<byte[]> frames) {
+        if (batch.isEmpty()) return;
+        if (batch.size() == 1) { // nothing to share the frame with
+            byte[] body = batch.get(0);
+            byte[] frame = new byte[body.length + 1];
+            frame[0] = WHOLE;
+            System.arraycopy(body, 0, frame, 1, body.length);
+            frames.add(frame);
+        } else {
+            FriendlyByteBuf out = new FriendlyByteBuf(Unpooled.buffer());
+            out.writeByte(BUNDLE);
+            out.writeVarInt(batch.size());
+            for (byte[] body : batch) {
+                out.writeByteArray(body);
+            }
+            frames.add(Arrays.copyOf(out.array(), out.writerIndex()));
+        }
+        batch.clear();
+    }
+
+    /**
+     * Read the bodies of a bundle frame, positioned after the frame kind.
+     *
+     * @return Slices of the frame, one per body in send order
+     * @throws IllegalStateException If the bundle is malformed
+     */
+    public static List<ByteBuf> unbundle(FriendlyByteBuf buf) {
+        int count = buf.readVarInt();
+        if (count < 0 || count > buf.readableBytes()) throw new IllegalStateException("Bundle size " + count + " out of bounds");
+        List<ByteBuf> bodies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = buf.readVarInt();
+            if (length < 0 || length > buf.readableBytes()) throw new IllegalStateException("Bundled body length " + length + " out of bounds");
+            bodies.add(buf.readSlice(length));
+        }
+        if (buf.isReadable()) throw new IllegalStateException(buf.readableBytes() + " trailing bytes after bundle");
+        return bodies;
+    }
+
+    /**
+     * Read the packet index from a body and return a buffer positioned at the payload, inflated if needed.
+     * An inflated payload is a pooled buffer; call {@link Body#release()} once the packet is decoded.
+     *
+     * @throws IllegalStateException If the body is malformed or inflates beyond {@link #MAX_BODY}
+     */
+    public static Body readBody(FriendlyByteBuf buf) {
+        int index = buf.readVarInt();
+        byte compression = buf.readByte();
+        if (compression == RAW) return new Body(index, buf, false);
+        if (compression != DEFLATE) throw new IllegalStateException("Unknown compression " + compression);
+
+        int length = buf.readVarInt();
+        if (length < 0 || length > MAX_BODY) throw new IllegalStateException("Inflated size " + length + " out of bounds");
+        ByteBuf payload = inflate(buf.nioBuffer(buf.readerIndex(), buf.readableBytes()), length);
+        buf.skipBytes(buf.readableBytes());
+        return new Body(index, new FriendlyByteBuf(payload), true);
+    }
+
+    /**
+     * @return Deflated bytes, or null if they would not be smaller than the input
+     */
+    private static byte[] deflate(ByteBuffer raw, int length) {
+        Deflater deflater = DEFLATER.get();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[length];
+            int size = 0;
+            while (!deflater.finished() && size < out.length) {
+                size += deflater.deflate(out, size, out.length - size);
+            }
+            // not finished means the output would not be smaller than the input
+            return deflater.finished() && size < length ? Arrays.copyOf(out, size) : null;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private static ByteBuf inflate(ByteBuffer compressed, int length) {
+        Inflater inflater = INFLATER.get();
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.heapBuffer(length, length);
+        try {
+            inflater.setInput(compressed);
+            ByteBuffer target = out.nioBuffer(0, length);
+            while (target.hasRemaining() && !inflater.finished()) {
+                int read = inflater.inflate(target);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+            }
+            int size = target.position();
+            if (size != length || !inflater.finished()) {
+                throw new IllegalStateException("Inflated " + size + " bytes, expected " + length);
+            }
+            out.writerIndex(length);
+            return out;
+        } catch (DataFormatException e) {
+            out.release();
+            throw new IllegalStateException("Corrupt compressed payload", e);
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    /**
+     * @param owned Whether the payload is a pooled buffer of its own rather than a view of the frame
+     */
+    public record Body(int index, FriendlyByteBuf payload, boolean owned) {
+        public void release() {
+            if (owned) payload.release();
+        }
+    }
+}
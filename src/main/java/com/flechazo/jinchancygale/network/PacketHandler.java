@@ -1,24 +1,58 @@
 package com.flechazo.jinchancygale.network;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.Connection;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.network.NetworkDirection;
 import net.minecraftforge.network.NetworkEvent;
 import net.minecraftforge.network.NetworkRegistry;
 import net.minecraftforge.network.PacketDistributor;
 import net.minecraftforge.network.simple.SimpleChannel;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static com.flechazo.jinchancygale.JinchancyGale.MODID;
 
+/**
+ * Packet channel with a framed transport.
+ * Every packet travels in a {@link Frame}: payloads above {@link PacketFrames#COMPRESSION_THRESHOLD} are deflated,
+ * and bodies too large for one custom payload are split into ordered fragments and reassembled by the receiver.
+ * With {@link #enableBundling}, packets to clients are queued per connection and sent as bundles by {@link #flush}.
+ */
 public abstract class PacketHandler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    // malformed frames a connection may send before it is dropped
+    private static final int MAX_MALFORMED = 16;
     // Main channel instance
     private final SimpleChannel channel;
-    // Packet ID counter
-    private int packetId = 0;
+    // Registered packets by index and by class
+    private final List<Registration<?>> registrations = new ArrayList<>();
+    private final Map<Class<?>, Registration<?>> registrationsByClass = new HashMap<>();
+    private final FragmentAssembler assembler = new FragmentAssembler();
+    private final AtomicInteger streamIds = new AtomicInteger();
+    private final Map<Connection, AtomicInteger> malformed = new ConcurrentHashMap<>();
+    // bodies waiting for the end of the tick, per connection in send order
+    private final Map<ServerGamePacketListenerImpl, List<byte[]>> pending = new ConcurrentHashMap<>();
+    private volatile boolean bundling = false;
 
     /**
      * Initialize network manager with mod ID and protocol version.
@@ -32,6 +66,7 @@ public abstract class PacketHandler {
                 protocolVersion::equals,
                 protocolVersion::equals
         );
+        channel.registerMessage(0, Frame.class, Frame::encode, Frame::decode, this::handleFrame);
     }
 
     /**
@@ -40,13 +75,24 @@ public abstract class PacketHandler {
      */
     public abstract void registerPackets();
 
+    /**
+     * Queue packets to clients and send them at the end of the tick as bundle frames,
+     * instead of one custom payload per packet. {@link ModPacket#urgent} packets still go out right away.
+     * The owner must call {@link #flush} at the end of every server tick.
+     */
+    protected void enableBundling() {
+        bundling = true;
+    }
+
     /**
      * Send packet to server.
      *
      * @param packet Packet instance to send
      */
-    public <T extends AbstractPacket> void sendToServer(T packet) {
-        channel.sendToServer(packet);
+    public <T extends ModPacket> void sendToServer(T packet) {
+        for (Frame frame : frame(packet)) {
+            channel.sendToServer(frame);
+        }
     }
 
     /**
@@ -55,8 +101,274 @@ public abstract class PacketHandler {
      * @param packet Packet instance
      * @param player Target player
      */
-    public <T extends AbstractPacket> void sendToClient(T packet, ServerPlayer player) {
-        channel.send(PacketDistributor.PLAYER.with(() -> player), packet);
+    public <T extends ModPacket> void sendToClient(T packet, ServerPlayer player) {
+        if (bundling && !packet.urgent()) {
+            queue(player.connection, body(packet));
+            return;
+        }
+        for (Frame frame : frame(packet)) {
+            channel.send(PacketDistributor.PLAYER.with(() -> player), frame);
+        }
+    }
+
+    /**
+     * Send packet to every online player.
+     *
+     * @param packet Packet instance
+     * @return Number of recipients
+     */
+    public <T extends ModPacket> int sendToAll(T packet) {
+        return broadcast(packet, player -> true);
+    }
+
+    /**
+     * Send packet to every online player with at least the given permission level.
+     *
+     * @param packet Packet instance
+     * @param level  Minimum permission level
+     * @return Number of recipients
+     */
+    public <T extends ModPacket> int sendToPermissionLevel(T packet, int level) {
+        return broadcast(packet, player -> player.hasPermissions(level));
+    }
+
+    /**
+     * Send packet to every player in a dimension.
+     *
+     * @param packet    Packet instance
+     * @param dimension Target dimension
+     * @return Number of recipients
+     */
+    public <T extends ModPacket> int sendToDimension(T packet, ResourceKey<Level> dimension) {
+        return broadcast(packet, player -> player.level().dimension() == dimension);
+    }
+
+    /**
+     * Send packet to every online player matching a filter.
+     * The packet is encoded once and the same payload is handed to every connection,
+     * so the cost of encoding does not grow with the player count.
+     *
+     * @param packet Packet instance
+     * @param filter Recipient filter
+     * @return Number of recipients
+     */
+    public <T extends ModPacket> int broadcast(T packet, Predicate<ServerPlayer> filter) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) return 0;
+        return broadcast(packet, server.getPlayerList().getPlayers(), filter);
+    }
+
+    /**
+     * Send packet to the players matching a filter, encoding it once.
+     *
+     * @param packet  Packet instance
+     * @param players Candidate recipients
+     * @param filter  Recipient filter
+     * @return Number of recipients
+     */
+    public <T extends ModPacket> int broadcast(T packet, Collection<ServerPlayer> players, Predicate<ServerPlayer> filter) {
+        boolean queued = bundling && !packet.urgent();
+        byte[] body = null;
+        List<Packet<?>> payloads = null;
+        int count = 0;
+        for (ServerPlayer player : players) {
+            if (!filter.test(player)) continue;
+            if (queued) {
+                if (body == null) body = body(packet);
+                queue(player.connection, body);
+                count++;
+                continue;
+            }
+            if (payloads == null) {
+                payloads = new ArrayList<>();
+                for (Frame frame : frame(packet)) {
+                    payloads.add(channel.toVanillaPacket(frame, NetworkDirection.PLAY_TO_CLIENT));
+                }
+            }
+            for (Packet<?> payload : payloads) {
+                player.connection.send(payload);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Send the packets queued during this tick, packing each connection's packets into as few frames as possible.
+     * Must be called at the end of every server tick once bundling is enabled.
+     */
+    public void flush() {
+        // connections that queued the same bodies in the same order, as after a broadcast, share one set of frames;
+        // byte[] equality is identity, so this never compares contents
+        Map<List<byte[]>, List<Packet<?>>> encoded = new HashMap<>();
+        for (ServerGamePacketListenerImpl listener : pending.keySet()) {
+            List<byte[]> bodies = pending.remove(listener);
+            if (bodies == null) continue;
+            for (Packet<?> payload : encoded.computeIfAbsent(bodies, this::bundlePayloads)) {
+                listener.send(payload);
+            }
+        }
+    }
+
+    private List<Packet<?>> bundlePayloads(List<byte[]> bodies) {
+        List<Packet<?>> payloads = new ArrayList<>();
+        for (byte[] data : PacketFrames.bundle(bodies, this::nextStream)) {
+            payloads.add(channel.toVanillaPacket(new Frame(Unpooled.wrappedBuffer(data)), NetworkDirection.PLAY_TO_CLIENT));
+        }
+        return payloads;
+    }
+
+    /**
+     * Drop the partly received packets and malformed frame count of a closed connection.
+     */
+    public void disconnected(Connection connection) {
+        assembler.remove(connection);
+        malformed.remove(connection);
+    }
+
+    /**
+     * Drop queued packets, for when the server stops before the next flush.
+     */
+    public void clearPending() {
+        pending.clear();
+    }
+
+    private void queue(ServerGamePacketListenerImpl listener, byte[] body) {
+        pending.compute(listener, (key, bodies) -> {
+            if (bodies == null) bodies = new ArrayList<>();
+            bodies.add(body);
+            return bodies;
+        });
+    }
+
+    /**
+     * Encode a packet once and split it into frames.
+     */
+    private <T extends ModPacket> List<Frame> frame(T packet) {
+        ByteBuf body = encode(packet);
+        try {
+            List<Frame> frames = new ArrayList<>();
+            for (byte[] data : PacketFrames.split(body, nextStream())) {
+                frames.add(new Frame(Unpooled.wrappedBuffer(data)));
+            }
+            return frames;
+        } finally {
+            body.release();
+        }
+    }
+
+    /**
+     * Encode a packet into a body that can be queued.
+     */
+    private <T extends ModPacket> byte[] body(T packet) {
+        ByteBuf body = encode(packet);
+        try {
+            return ByteBufUtil.getBytes(body);
+        } finally {
+            body.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends ModPacket> ByteBuf encode(T packet) {
+        Registration<T> registration = (Registration<T>) registrationsByClass.get(packet.getClass());
+        if (registration == null) {
+            throw new IllegalArgumentException("Unregistered packet " + packet.getClass().getName());
+        }
+        return PacketFrames.encodeBody(registration.index(), buf -> registration.encoder().accept(packet, buf));
+    }
+
+    private int nextStream() {
+        return streamIds.getAndIncrement() & Integer.MAX_VALUE;
+    }
+
+    // runs on the network thread, only the validated packet's handler is moved to the main thread
+    private void handleFrame(Frame frame, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        context.setPacketHandled(true);
+        FriendlyByteBuf buf = new FriendlyByteBuf(frame.data());
+        ByteBuf body = buf;
+        try {
+            byte kind = buf.readByte();
+            if (kind == PacketFrames.BUNDLE) {
+                // handlers are queued in bundle order, so they run in the order the packets were sent
+                for (ByteBuf bundled : PacketFrames.unbundle(buf)) {
+                    handleBody(bundled, contextSupplier);
+                }
+                return;
+            }
+            if (kind == PacketFrames.FRAGMENT) {
+                int stream = buf.readVarInt();
+                int index = buf.readVarInt();
+                int count = buf.readVarInt();
+                // the only copy on the decode side, a fragment outlives the frame it arrived in
+                byte[] chunk = new byte[buf.readableBytes()];
+                buf.readBytes(chunk);
+                body = assembler.accept(context.getNetworkManager(), stream, index, count, chunk);
+                if (body == null) return; // waiting for more fragments
+            }
+            handleBody(body, contextSupplier);
+        } catch (RuntimeException e) {
+            malformedFrame(context, e);
+        } finally {
+            frame.data().release();
+        }
+    }
+
+    // warn once per connection, a peer sending garbage must not be able to flood the log
+    private void malformedFrame(NetworkEvent.Context context, RuntimeException e) {
+        Connection connection = context.getNetworkManager();
+        Object from = context.getSender() != null ? context.getSender().getScoreboardName() : connection.getRemoteAddress();
+        int count = malformed.computeIfAbsent(connection, key -> new AtomicInteger()).incrementAndGet();
+        if (count == 1) {
+            LOGGER.warn("Dropping malformed packet frame from {}: {}", from, e.getMessage());
+        } else {
+            LOGGER.debug("Dropping malformed packet frame from {}", from, e);
+        }
+        if (count == MAX_MALFORMED && context.getSender() != null) {
+            LOGGER.warn("Disconnecting {} after {} malformed packet frames", from, count);
+            connection.disconnect(Component.literal("Too many malformed packets"));
+        }
+    }
+
+    private void handleBody(ByteBuf body, Supplier<NetworkEvent.Context> contextSupplier) {
+        PacketFrames.Body decoded = PacketFrames.readBody(new FriendlyByteBuf(body));
+        try {
+            if (decoded.index() < 0 || decoded.index() >= registrations.size()) {
+                throw new IllegalStateException("Unknown packet index " + decoded.index());
+            }
+            // packets are fully decoded here, nothing keeps a reference to the payload after dispatch
+            dispatch(registrations.get(decoded.index()), decoded.payload(), contextSupplier);
+        } finally {
+            decoded.release();
+        }
+    }
+
+    /**
+     * Decode and validate on the network thread, then schedule the handler on the main thread exactly once.
+     * Packets with trailing bytes or failing {@link ModPacket#validate} never reach the main thread.
+     */
+    private <T extends ModPacket> void dispatch(Registration<T> registration, FriendlyByteBuf payload,
+                                                     Supplier<NetworkEvent.Context> contextSupplier) {
+        T packet = registration.decoder().apply(payload);
+        if (payload.isReadable()) {
+            throw new IllegalStateException(payload.readableBytes() + " trailing bytes after " + packet.getClass().getSimpleName());
+        }
+        if (!packet.validate(contextSupplier.get())) {
+            LOGGER.debug("Rejected {} from {}", packet.getClass().getSimpleName(), contextSupplier.get().getSender());
+            return;
+        }
+        contextSupplier.get().enqueueWork(() -> registration.handler().accept(packet, contextSupplier));
+    }
+
+    /**
+     * Register a record packet with a codec derived from its components, see {@link RecordCodec}.
+     *
+     * @param packetClass Record class of the packet
+     */
+    protected <T extends Record & ModPacket> void registerRecord(Class<T> packetClass) {
+        RecordCodec<T> codec = RecordCodec.of(packetClass);
+        registerPacket(packetClass, codec::encode, codec::decode, ModPacket::handle);
     }
 
     /**
@@ -64,33 +376,79 @@ public abstract class PacketHandler {
      *
      * @param packetClass Class of the packet
      * @param encoder     Encoder function
-     * @param decoder     Decoder function
-     * @param handler     Packet handler
+     * @param decoder     Decoder function, runs on the network thread
+     * @param handler     Packet handler, runs on the main thread
      */
-    protected <T extends AbstractPacket> void registerPacket(
+    protected <T extends ModPacket> void registerPacket(
             Class<T> packetClass,
             BiConsumer<T, FriendlyByteBuf> encoder,
             Function<FriendlyByteBuf, T> decoder,
             BiConsumer<T, Supplier<NetworkEvent.Context>> handler
     ) {
-        channel.registerMessage(
-                packetId++,
-                packetClass,
-                encoder,
-                decoder,
-                (packet, contextSupplier) -> {
-                    NetworkEvent.Context context = contextSupplier.get();
-                    context.enqueueWork(() -> handler.accept(packet, contextSupplier));
-                    context.setPacketHandled(true);
-                }
-        );
+        Registration<T> registration = new Registration<>(registrations.size(), encoder, decoder, handler);
+        registrations.add(registration);
+        registrationsByClass.put(packetClass, registration);
+    }
+
+    private record Registration<T extends ModPacket>(int index,
+                                                     BiConsumer<T, FriendlyByteBuf> encoder,
+                                                     Function<FriendlyByteBuf, T> decoder,
+                                                     BiConsumer<T, Supplier<NetworkEvent.Context>> handler) {
+    }
+
+    /**
+     * One custom payload of the framed transport, see {@link PacketFrames}.
+     *
+     * @param data Frame bytes; a decoded frame holds a retained slice of the received payload, released by the handler
+     */
+    public record Frame(ByteBuf data) {
+        public void encode(FriendlyByteBuf buf) {
+            buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+        }
+
+        public static Frame decode(FriendlyByteBuf buf) {
+            return new Frame(buf.readRetainedSlice(buf.readableBytes()));
+        }
     }
 
     /**
-     * Base class for all custom packets.
+     * A packet that can be sent through this handler.
+     * Records implementing it get a derived codec with {@link #registerRecord}.
+     */
+    public interface ModPacket {
+        /**
+         * Check a decoded packet on the network thread before it is scheduled on the main thread.
+         * Must not touch game state that is only safe on the main thread.
+         *
+         * @param context Network context
+         * @return False to drop the packet
+         */
+        default boolean validate(NetworkEvent.Context context) {
+            return true;
+        }
+
+        /**
+         * Whether the packet is latency-critical and skips the per-tick bundle, see {@link #enableBundling}.
+         *
+         * @return True to send right away
+         */
+        default boolean urgent() {
+            return false;
+        }
+
+        /**
+         * Handle packet on receiving side. Called on the main thread.
+         *
+         * @param context Network context
+         */
+        void handle(Supplier<NetworkEvent.Context> context);
+    }
+
+    /**
+     * Base class for packets with hand-written codecs.
      * Implementations must provide encode/decode/handle methods.
      */
-    public static abstract class AbstractPacket {
+    public static abstract class AbstractPacket implements ModPacket {
         /**
          * Encode packet data into byte buffer.
          *
@@ -104,12 +462,5 @@ public abstract class PacketHandler {
          * @param buf Source byte buffer
          */
         public abstract void decode(FriendlyByteBuf buf);
-
-        /**
-         * Handle packet on receiving side.
-         *
-         * @param context Network context
-         */
-        public abstract void handle(Supplier<NetworkEvent.Context> context);
     }
 }
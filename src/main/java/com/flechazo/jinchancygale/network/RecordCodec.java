@@ -0,0 +1,235 @@
+package com.flechazo.jinchancygale.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Packet codec derived from a record's components.
+ * Components are written in declaration order without tags, so both sides must share the record definition.
+ * The codec is built once; encoding and decoding only invoke prebuilt method handles and field codecs.
+ * <p>
+ * Supported component types: primitives and their boxes, {@link String}, enums, {@link UUID}, {@link ResourceLocation},
+ * {@link BitSet}, {@code byte[]}, {@code int[]}, nested records, {@link List}, {@link Set} and {@link Map}
+ * of supported types, and any type given a codec with {@link #register}.
+ * Ints and longs are zigzag varints, {@code int[]} elements are fixed 4-byte ints.
+ *
+ * @param <T> Record type
+ */
+public final class RecordCodec<T extends Record> {
+    private static final Map<Class<?>, FieldCodec<?>> CUSTOM = new ConcurrentHashMap<>();
+
+    private final MethodHandle[] getters;
+    private final FieldCodec<Object>[] fields;
+    // takes the component values as one Object[]
+    private final MethodHandle constructor;
+
+    private RecordCodec(MethodHandle[] getters, FieldCodec<Object>[] fields, MethodHandle constructor) {
+        this.getters = getters;
+        this.fields = fields;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Derive the codec of a record.
+     *
+     * @throws IllegalArgumentException If a component type is not supported
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Record> RecordCodec<T> of(Class<T> type) {
+        RecordComponent[] components = type.getRecordComponents();
+        MethodHandle[] getters = new MethodHandle[components.length];
+        FieldCodec<Object>[] fields = new FieldCodec[components.length];
+        Class<?>[] types = new Class<?>[components.length];
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            for (int i = 0; i < components.length; i++) {
+                RecordComponent component = components[i];
+                types[i] = component.getType();
+                getters[i] = lookup.unreflect(component.getAccessor()).asType(MethodType.methodType(Object.class, Object.class));
+                fields[i] = (FieldCodec<Object>) codec(component.getGenericType(), type.getName() + "." + component.getName());
+            }
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class, types))
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return new RecordCodec<>(getters, fields, constructor);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalArgumentException("Cannot access record " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Give a type a codec, for components the built-in types do not cover.
+     * Must be called before codecs using the type are derived.
+     */
+    public static <V> void register(Class<V> type, BiConsumer<FriendlyByteBuf, V> writer, Function<FriendlyByteBuf, V> reader) {
+        CUSTOM.put(type, new FieldCodec<>(writer, reader));
+    }
+
+    public void encode(T value, FriendlyByteBuf buf) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].write(buf, (Object) getters[i].invokeExact((Object) value));
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T decode(FriendlyByteBuf buf) {
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = fields[i].read(buf);
+        }
+        try {
+            return (T) (Object) constructor.invokeExact(values);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static FieldCodec<?> codec(Type type, String where) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw) {
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (raw == List.class) {
+                FieldCodec<Object> element = (FieldCodec<Object>) codec(arguments[0], where);
+                return new FieldCodec<List<Object>>((buf, list) -> writeCollection(buf, list, element),
+                        buf -> readCollection(buf, ArrayList::new, element));
+            } else if (raw == Set.class) {
+                FieldCodec<Object> element = (FieldCodec<Object>) codec(arguments[0], where);
+                return new FieldCodec<Set<Object>>((buf, set) -> writeCollection(buf, set, element),
+                        buf -> readCollection(buf, LinkedHashSet::new, element));
+            } else if (raw == Map.class) {
+                FieldCodec<Object> key = (FieldCodec<Object>) codec(arguments[0], where);
+                FieldCodec<Object> value = (FieldCodec<Object>) codec(arguments[1], where);
+                return new FieldCodec<Map<Object, Object>>((buf, map) -> {
+                    buf.writeVarInt(map.size());
+                    map.forEach((k, v) -> {
+                        key.write(buf, k);
+                        value.write(buf, v);
+                    });
+                }, buf -> {
+                    int size = readSize(buf);
+                    Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+                    for (int i = 0; i < size; i++) {
+                        map.put(key.read(buf), value.read(buf));
+                    }
+                    return map;
+                });
+            }
+            throw new IllegalArgumentException("Unsupported generic type " + type + " at " + where);
+        }
+        if (!(type instanceof Class<?> clazz)) {
+            throw new IllegalArgumentException("Unsupported type " + type + " at " + where);
+        }
+        FieldCodec<?> custom = CUSTOM.get(clazz);
+        if (custom != null) return custom;
+        if (clazz == boolean.class || clazz == Boolean.class) {
+            return new FieldCodec<Boolean>(FriendlyByteBuf::writeBoolean, FriendlyByteBuf::readBoolean);
+        } else if (clazz == byte.class || clazz == Byte.class) {
+            return new FieldCodec<Byte>(FriendlyByteBuf::writeByte, FriendlyByteBuf::readByte);
+        } else if (clazz == short.class || clazz == Short.class) {
+            return new FieldCodec<Short>(FriendlyByteBuf::writeShort, FriendlyByteBuf::readShort);
+        } else if (clazz == char.class || clazz == Character.class) {
+            return new FieldCodec<Character>(FriendlyByteBuf::writeChar, FriendlyByteBuf::readChar);
+        } else if (clazz == int.class || clazz == Integer.class) {
+            return new FieldCodec<Integer>((buf, value) -> buf.writeVarInt((value << 1) ^ (value >> 31)), buf -> {
+                int value = buf.readVarInt();
+                return (value >>> 1) ^ -(value & 1);
+            });
+        } else if (clazz == long.class || clazz == Long.class) {
+            return new FieldCodec<Long>((buf, value) -> buf.writeVarLong((value << 1) ^ (value >> 63)), buf -> {
+                long value = buf.readVarLong();
+                return (value >>> 1) ^ -(value & 1);
+            });
+        } else if (clazz == float.class || clazz == Float.class) {
+            return new FieldCodec<Float>(FriendlyByteBuf::writeFloat, FriendlyByteBuf::readFloat);
+        } else if (clazz == double.class || clazz == Double.class) {
+            return new FieldCodec<Double>(FriendlyByteBuf::writeDouble, FriendlyByteBuf::readDouble);
+        } else if (clazz == String.class) {
+            return new FieldCodec<String>(FriendlyByteBuf::writeUtf, FriendlyByteBuf::readUtf);
+        } else if (clazz == UUID.class) {
+            return new FieldCodec<UUID>(FriendlyByteBuf::writeUUID, FriendlyByteBuf::readUUID);
+        } else if (clazz == ResourceLocation.class) {
+            return new FieldCodec<ResourceLocation>(FriendlyByteBuf::writeResourceLocation, FriendlyByteBuf::readResourceLocation);
+        } else if (clazz == BitSet.class) {
+            return new FieldCodec<BitSet>(FriendlyByteBuf::writeBitSet, FriendlyByteBuf::readBitSet);
+        } else if (clazz == byte[].class) {
+            return new FieldCodec<byte[]>(FriendlyByteBuf::writeByteArray, FriendlyByteBuf::readByteArray);
+        } else if (clazz == int[].class) {
+            return new FieldCodec<int[]>((buf, array) -> {
+                buf.writeVarInt(array.length);
+                for (int value : array) {
+                    buf.writeInt(value);
+                }
+            }, buf -> {
+                int size = buf.readVarInt();
+                if (size < 0 || size > buf.readableBytes() / 4) throw new IllegalStateException("Array size " + size + " out of bounds");
+                int[] array = new int[size];
+                for (int i = 0; i < size; i++) {
+                    array[i] = buf.readInt();
+                }
+                return array;
+            });
+        } else if (clazz.isEnum()) {
+            Object[] constants = clazz.getEnumConstants();
+            return new FieldCodec<Enum>((buf, value) -> buf.writeVarInt(value.ordinal()), buf -> {
+                int ordinal = buf.readVarInt();
+                if (ordinal < 0 || ordinal >= constants.length) throw new IllegalStateException("Unknown " + clazz.getSimpleName() + " " + ordinal);
+                return (Enum) constants[ordinal];
+            });
+        } else if (clazz.isRecord()) {
+            RecordCodec codec = of((Class<? extends Record>) clazz);
+            return new FieldCodec<Record>((buf, value) -> codec.encode(value, buf), codec::decode);
+        }
+        throw new IllegalArgumentException("Unsupported type " + clazz.getName() + " at " + where);
+    }
+
+    private static void writeCollection(FriendlyByteBuf buf, Collection<Object> collection, FieldCodec<Object> element) {
+        buf.writeVarInt(collection.size());
+        for (Object value : collection) {
+            element.write(buf, value);
+        }
+    }
+
+    private static <C extends Collection<Object>> C readCollection(FriendlyByteBuf buf, IntFunction<C> factory, FieldCodec<Object> element) {
+        int size = readSize(buf);
+        C collection = factory.apply(size);
+        for (int i = 0; i < size; i++) {
+            collection.add(element.read(buf));
+        }
+        return collection;
+    }
+
+    // every element takes at least one byte, so a larger size can only come from a malformed packet
+    private static int readSize(FriendlyByteBuf buf) {
+        int size = buf.readVarInt();
+        if (size < 0 || size > buf.readableBytes()) throw new IllegalStateException("Collection size " + size + " out of bounds");
+        return size;
+    }
+
+    private record FieldCodec<V>(BiConsumer<FriendlyByteBuf, V> writer, Function<FriendlyByteBuf, V> reader) {
+        void write(FriendlyByteBuf buf, V value) {
+            writer.accept(buf, value);
+        }
+
+        V read(FriendlyByteBuf buf) {
+            return reader.apply(buf);
+        }
+    }
+}
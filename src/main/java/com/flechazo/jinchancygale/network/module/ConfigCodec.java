@@ -0,0 +1,146 @@
+package com.flechazo.jinchancygale.network.module;
+
+import com.flechazo.jinchancygale.config.ConfigEntry;
+import com.flechazo.jinchancygale.config.ConfigSchema;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import net.minecraft.network.FriendlyByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.BitSet;
+
+/**
+ * Compact wire format for config values.
+ * <p>
+ * Keys are sent as schema ids and values without type tags, since the schema fixes each type.
+ * Local keys exist on one side only and are never written.
+ * Values are read from and written to {@link ConfigValues} slots directly.
+ * Booleans are packed into a bitset, ints and longs are zigzag varints.
+ * <pre>
+ * varint  version
+ * int     schema hash
+ * varint  boolean count, then boolean ids, then the packed bitset
+ * varint  value count, then per value: varint id + typed value
+ * </pre>
+ */
+public final class ConfigCodec {
+    public static final int VERSION = 1;
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private ConfigCodec() {
+    }
+
+    public static void encode(FriendlyByteBuf buf, ConfigValues values) {
+        ConfigSchema schema = values.schema();
+        buf.writeVarInt(VERSION);
+        buf.writeInt(schema.hash());
+
+        // local ids come last, so stopping at the shared size skips them
+        int shared = schema.sharedSize();
+        int booleanCount = 0;
+        int valueCount = 0;
+        for (int id = values.nextId(0); id >= 0 && id < shared; id = values.nextId(id + 1)) {
+            if (schema.get(id).type() == boolean.class) booleanCount++;
+            else valueCount++;
+        }
+        BitSet bits = new BitSet(booleanCount);
+        buf.writeVarInt(booleanCount);
+        int index = 0;
+        for (int id = values.nextId(0); id >= 0 && id < shared; id = values.nextId(id + 1)) {
+            if (schema.get(id).type() != boolean.class) continue;
+            buf.writeVarInt(id);
+            if (values.getBoolean(id)) bits.set(index);
+            index++;
+        }
+        buf.writeBitSet(bits);
+
+        buf.writeVarInt(valueCount);
+        for (int id = values.nextId(0); id >= 0 && id < shared; id = values.nextId(id + 1)) {
+            Class<?> type = schema.get(id).type();
+            if (type == boolean.class) continue;
+            buf.writeVarInt(id);
+            if (type == int.class) {
+                writeZigZagInt(buf, values.getInt(id));
+            } else if (type == long.class) {
+                writeZigZagLong(buf, values.getLong(id));
+            } else if (type == double.class) {
+                buf.writeDouble(values.getDouble(id));
+            } else {
+                buf.writeUtf(values.getString(id));
+            }
+        }
+    }
+
+    /**
+     * Decode values written by {@link #encode} into slots of the receiver's schema.
+     *
+     * @return False if the data was written against another codec version or schema; the buffer is drained
+     */
+    public static boolean decode(FriendlyByteBuf buf, ConfigValues values) {
+        ConfigSchema schema = values.schema();
+        int version = buf.readVarInt();
+        int hash = buf.readInt();
+        if (version != VERSION || hash != schema.hash()) {
+            LOGGER.error("Config schema mismatch (version {}, hash {}), expected version {}, hash {}", version, hash, VERSION, schema.hash());
+            buf.skipBytes(buf.readableBytes());
+            return false;
+        }
+
+        int booleanCount = readCount(buf);
+        int[] booleanIds = new int[booleanCount];
+        for (int i = 0; i < booleanCount; i++) {
+            booleanIds[i] = checkId(schema, buf.readVarInt());
+        }
+        BitSet bits = buf.readBitSet();
+        for (int i = 0; i < booleanCount; i++) {
+            values.setBoolean(booleanIds[i], bits.get(i));
+        }
+
+        int count = readCount(buf);
+        for (int i = 0; i < count; i++) {
+            int id = checkId(schema, buf.readVarInt());
+            Class<?> type = schema.get(id).type();
+            if (type == int.class) {
+                values.setInt(id, readZigZagInt(buf));
+            } else if (type == long.class) {
+                values.setLong(id, readZigZagLong(buf));
+            } else if (type == double.class) {
+                values.setDouble(id, buf.readDouble());
+            } else {
+                values.setString(id, buf.readUtf());
+            }
+        }
+        return true;
+    }
+
+    // every id takes at least one byte, so a larger count can only come from a malformed packet
+    private static int readCount(FriendlyByteBuf buf) {
+        int count = buf.readVarInt();
+        if (count < 0 || count > buf.readableBytes()) throw new IllegalStateException("Config value count " + count + " out of bounds");
+        return count;
+    }
+
+    private static int checkId(ConfigSchema schema, int id) {
+        ConfigEntry entry = schema.get(id);
+        if (entry == null || entry.local()) throw new IllegalArgumentException("Unknown config id: " + id);
+        return id;
+    }
+
+    public static void writeZigZagInt(FriendlyByteBuf buf, int value) {
+        buf.writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public static int readZigZagInt(FriendlyByteBuf buf) {
+        int value = buf.readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void writeZigZagLong(FriendlyByteBuf buf, long value) {
+        buf.writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public static long readZigZagLong(FriendlyByteBuf buf) {
+        long value = buf.readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
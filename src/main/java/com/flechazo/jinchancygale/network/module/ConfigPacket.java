@@ -1,150 +1,243 @@
 package com.flechazo.jinchancygale.network.module;
 
-
+import com.flechazo.jinchancygale.client.ClientConfigCache;
 import com.flechazo.jinchancygale.client.gui.ConfigScreen;
+import com.flechazo.jinchancygale.config.ConfigEntry;
 import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.metrics.ConfigMetrics;
 import com.flechazo.jinchancygale.network.NetworkHandler;
 import com.flechazo.jinchancygale.network.PacketHandler;
+import com.flechazo.jinchancygale.network.RecordCodec;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.network.NetworkEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-import java.lang.reflect.Field;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
+import java.util.List;
 import java.util.function.Supplier;
 
-public class ConfigPacket extends PacketHandler.AbstractPacket {
-    private final Map<String, Object> configData = new HashMap<>();
-    private int type;
+/**
+ * Config traffic between client and server; the wire codec is derived from the record components.
+ *
+ * @param type         One of the type constants, the last bit tells the direction
+ * @param full         Sync only: whether configData is a full snapshot or a delta from baseRevision
+ * @param baseRevision Revision a delta applies to, -1 if none
+ * @param revision     Revision after applying the data, -1 if none
+ * @param digest       Hello only: bucket hashes of the client's cached config, empty if it has none
+ * @param present      Hello only: ids present in the client's cached config
+ * @param scopes       Fetch only: requested "module:" or "category:" scopes
+ * @param configData   Values carried by the packet, may be sparse; null if they were written against another schema.
+ *                     Last on the wire, since a mismatched schema skips the rest of the packet
+ */
+public record ConfigPacket(int type, boolean full, long baseRevision, long revision,
+                           int[] digest, BitSet present, List<String> scopes, ConfigValues configData) implements PacketHandler.ModPacket {
+    private static final Logger LOGGER = LogManager.getLogger();
+    // type: last bit for 0: from client, 1: from server
+    public static final int UPDATE = 0b0000; // post to server to save config
+    public static final int SYNC = 0b0001; // send config to client
+    public static final int RESYNC_REQUEST = 0b0010; // resync in gui
+    public static final int RESYNC_RESPONSE = 0b0011; // resync in gui
+    public static final int ACK = 0b0100; // client acknowledges a synced revision
+    public static final int PUSH = 0b0101; // server pushes changed keys to clients
+    public static final int HELLO = 0b0110; // client sends the digest of its cached config on join
+    public static final int HELLO_RESPONSE = 0b0111; // server answers with the buckets that differ
+    public static final int FETCH = 0b1000; // screen asks for the values of modules or categories
+    public static final int FETCH_RESPONSE = 0b1001; // server sends the requested values
+    private static final int MAX_SCOPES = 64;
+    private static final int MAX_SCOPE_LENGTH = 256;
+
+    static {
+        // values are decoded against the receiver's schema, null on a mismatch
+        RecordCodec.register(ConfigValues.class, ConfigCodec::encode, buf -> {
+            ConfigValues values = new ConfigValues(ConfigManager.schema());
+            return ConfigCodec.decode(buf, values) ? values : null;
+        });
+    }
+
+    private static final RecordCodec<ConfigPacket> CODEC = RecordCodec.of(ConfigPacket.class);
 
-    public ConfigPacket(int type) {
-        this.type = type;
+    private static ConfigPacket create(int type, boolean full, long baseRevision, long revision, ConfigValues data) {
+        return new ConfigPacket(type, full, baseRevision, revision, new int[0], new BitSet(), List.of(), data.copy());
     }
 
-    public static ConfigPacket createForUpdate(Map<String, Object> serverConfig) { // post to server to save config
-        ConfigPacket packet = new ConfigPacket(0b0000); // type: last one for 0: from client,1: from server
-        packet.configData.putAll(serverConfig);
-        return packet;
+    private static ConfigPacket create(int type, long revision) {
+        return create(type, true, -1, revision, new ConfigValues(ConfigManager.schema()));
     }
 
-    public static ConfigPacket createForSync(Map<ForgeConfigSpec.ConfigValue, Field> map) { // send config to client
-        ConfigPacket packet = new ConfigPacket(0b0001);
-        map.forEach((configValue, field) -> {
-            packet.configData.put(field.getName(), configValue.get());
-        });
-        return packet;
+    public static ConfigPacket createForUpdate(ConfigValues serverConfig) { // post to server to save config
+        return create(UPDATE, true, -1, -1, serverConfig);
     }
 
-    public static ConfigPacket reSyncRequest() { // resync in gui
-        return new ConfigPacket(0b0010);
+    public static ConfigPacket createForSync(ConfigValues config, long revision) { // send config to client
+        return create(SYNC, true, -1, revision, config);
     }
 
-    public static ConfigPacket reSyncResponse(Map<String, Object> config) { // resync in gui
-        ConfigPacket packet = new ConfigPacket(0b0011);
-        packet.configData.putAll(config);
-        return packet;
+    public static ConfigPacket createForDelta(ConfigValues changes, long baseRevision, long revision) { // send changed keys to client
+        return create(SYNC, false, baseRevision, revision, changes);
     }
 
-    @Override
-    public void encode(FriendlyByteBuf buf) {
-        buf.writeInt(type);
-        buf.writeInt(configData.size());
+    public static ConfigPacket createForPush(ConfigValues changes, long baseRevision, long revision) { // notify clients of a change
+        return create(PUSH, false, baseRevision, revision, changes);
+    }
 
-        configData.forEach((key, value) -> {
-            buf.writeUtf(key);
-            encodeValue(buf, value);
-        });
+    public static ConfigPacket acknowledge(long revision) { // negative revision asks for a full snapshot
+        return create(ACK, revision);
     }
 
-    private void encodeValue(FriendlyByteBuf buf, Object value) {
-        if (value instanceof Boolean) {
-            buf.writeByte(0); // 类型标记: boolean
-            buf.writeBoolean((Boolean) value);
-        } else if (value instanceof Integer) {
-            buf.writeByte(1); // 类型标记: int
-            buf.writeInt((Integer) value);
-        } else if (value instanceof Long) {
-            buf.writeByte(2); // 类型标记: long
-            buf.writeLong((Long) value);
-        } else if (value instanceof Float) {
-            buf.writeByte(3); // 类型标记: float
-            buf.writeFloat((Float) value);
-        } else if (value instanceof Double) {
-            buf.writeByte(4); // 类型标记: double
-            buf.writeDouble((Double) value);
-        } else if (value instanceof String) {
-            buf.writeByte(5); // 类型标记: string
-            buf.writeUtf((String) value);
-        }
+    public static ConfigPacket hello(int[] digest, BitSet present) { // client joined with a cached config
+        return new ConfigPacket(HELLO, true, -1, -1, digest, present, List.of(), new ConfigValues(ConfigManager.schema()));
     }
 
-    @Override
-    public void decode(FriendlyByteBuf buf) {
-        type = buf.readInt();
-        int size = buf.readInt();
+    public static ConfigPacket fetch(List<String> scopes) { // screen needs values it does not have
+        return new ConfigPacket(FETCH, true, -1, -1, new int[0], new BitSet(), List.copyOf(scopes), new ConfigValues(ConfigManager.schema()));
+    }
 
-        configData.clear();
+    public static ConfigPacket fetchResponse(ConfigValues values, long revision) { // requested values at a revision
+        return create(FETCH_RESPONSE, true, -1, revision, values);
+    }
 
-        for (int i = 0; i < size; i++) {
-            decodeValue(buf);
-        }
+    public static ConfigPacket helloResponse(boolean full, ConfigValues changes, long revision) { // empty delta if the cache is current
+        return create(HELLO_RESPONSE, full, -1, revision, changes);
+    }
+
+    public static ConfigPacket reSyncRequest() { // resync in gui
+        return create(RESYNC_REQUEST, -1);
+    }
+
+    public static ConfigPacket reSyncResponse(ConfigValues config) { // resync in gui
+        return create(RESYNC_RESPONSE, true, -1, -1, config);
     }
 
-    private void decodeValue(FriendlyByteBuf buf) {
-        String key = buf.readUtf();
-        byte type = buf.readByte();
+    public static void encode(ConfigPacket packet, FriendlyByteBuf buf) {
+        int start = buf.writerIndex();
+        CODEC.encode(packet, buf);
+        ConfigMetrics.recordOut(packet.type, buf.writerIndex() - start);
+    }
 
-        switch (type) {
-            case 0 -> configData.put(key, buf.readBoolean());
-            case 1 -> configData.put(key, buf.readInt());
-            case 2 -> configData.put(key, buf.readLong());
-            case 3 -> configData.put(key, buf.readFloat());
-            case 4 -> configData.put(key, buf.readDouble());
-            case 5 -> configData.put(key, buf.readUtf());
-            default -> throw new IllegalArgumentException("Unknown config type: " + type);
+    public static ConfigPacket decode(FriendlyByteBuf buf) {
+        int start = buf.readerIndex();
+        ConfigPacket packet = CODEC.decode(buf);
+        ConfigMetrics.recordIn(packet.type, buf.readerIndex() - start);
+        return packet;
+    }
+
+    /**
+     * Runs on the network thread: drops packets that failed to decode, came from the wrong side,
+     * exceed the sender's rate or carry out-of-range values, so the main thread only gets a ready-to-apply batch.
+     */
+    @Override
+    public boolean validate(NetworkEvent.Context context) {
+        if (configData == null || type < 0) return false; // written against another schema
+        if (scopes.size() > MAX_SCOPES || scopes.stream().anyMatch(scope -> scope.length() > MAX_SCOPE_LENGTH)) return false;
+        boolean toServer = context.getDirection().getReceptionSide().isServer();
+        if (toServer != (type % 2 == 0)) return false;
+        if (!toServer) return true;
+        ServerPlayer player = context.getSender();
+        if (player == null) return false;
+        if (type == ACK || type == HELLO) return ConfigRequestLimiter.tryAcquireControl(player);
+        if (!ConfigRequestLimiter.tryAcquire(player)) {
+            if (type == UPDATE) { // an operator's save, tell them it was not applied
+                context.enqueueWork(() -> player.sendSystemMessage(Component.literal("Config update dropped, too many requests; try again shortly")));
+            }
+            return false;
+        }
+        if (type != UPDATE) return true;
+        for (int id = configData.nextId(0); id >= 0; id = configData.nextId(id + 1)) {
+            ConfigEntry entry = configData.schema().get(id);
+            if (!entry.accepts(configData)) {
+                LOGGER.warn("Rejected config update from {}: {} = {} is out of range", player.getGameProfile().getName(), entry.name(), configData.get(id));
+                return false;
+            }
         }
+        return true;
+    }
+
+    /**
+     * Answers to a client's join, request or screen go out right away. Pushes are broadcast at the end of the tick
+     * and ride in that tick's bundle. Serverbound packets are never bundled.
+     */
+    @Override
+    public boolean urgent() {
+        return type != PUSH;
     }
 
     @Override
     public void handle(Supplier<NetworkEvent.Context> context) {
-        context.get().enqueueWork(() -> {
-            if (type == -1) return;
-            if (type % 2 == 1) {
-                handleClientSide();
-            } else if (type % 2 == 0) {
-                handleServerSide(context);
-            }
-        });
-        context.get().setPacketHandled(true);
+        // already on the main thread and validated, see PacketHandler#dispatch
+        if (type % 2 == 1) {
+            handleClientSide();
+        } else {
+            handleServerSide(context);
+        }
     }
 
     private void handleServerSide(Supplier<NetworkEvent.Context> context) {
         ServerPlayer player = context.get().getSender();
         if (player == null) {
             return;
+        } else if (type == HELLO) {
+            // sent by every client on join, only operators get the config
+            if (player.hasPermissions(2)) NetworkHandler.sendToClient(ConfigSyncTracker.createHelloResponse(player, digest, present), player);
+            return;
         } else if (!player.hasPermissions(2)) {
             player.sendSystemMessage(Component.literal("You don't have permission to update the config"));
             return;
         }
-        if ((type >> 1) % 2 == 0) {
-            ConfigManager.syncValue(configData, true);
-        } else {
-            NetworkHandler.sendToClient(reSyncResponse(ConfigManager.defaultValues), player);
+        switch (type) {
+            case UPDATE -> ConfigRequestLimiter.queueUpdate(configData);
+            case RESYNC_REQUEST -> ConfigRequestLimiter.queueResync(player);
+            case FETCH -> NetworkHandler.sendToClient(ConfigSyncTracker.createFetchResponse(player, scopes), player);
+            case ACK -> {
+                ConfigSyncTracker.acknowledge(player, revision);
+                if (revision < 0) {
+                    ConfigMetrics.recordFullResync();
+                    NetworkHandler.sendToClient(ConfigSyncTracker.createSync(player), player);
+                }
+            }
         }
     }
 
     private void handleClientSide() {
-        if ((type >> 1) % 2 == 0) {
-            Minecraft.getInstance().setScreen(new ConfigScreen(configData, false));
-        } else {
-            Screen screen = Minecraft.getInstance().screen;
-            if (screen instanceof ConfigScreen) {
-                ((ConfigScreen) screen).updateConfig(configData);
+        switch (type) {
+            case SYNC -> {
+                ConfigValues values = ClientConfigCache.apply(full, baseRevision, revision, configData);
+                if (values == null) { // out of step with the server, ask for a full snapshot
+                    NetworkHandler.sendToServer(acknowledge(-1));
+                    return;
+                }
+                NetworkHandler.sendToServer(acknowledge(revision));
+                Minecraft.getInstance().setScreen(new ConfigScreen(values, false));
+            }
+            case PUSH -> {
+                ConfigValues values = ClientConfigCache.apply(false, baseRevision, revision, configData);
+                if (values == null) return; // not in step, the next sync brings a delta or snapshot
+                NetworkHandler.sendToServer(acknowledge(revision));
+                if (Minecraft.getInstance().screen instanceof ConfigScreen screen) {
+                    screen.updateOriginal(configData);
+                }
+            }
+            case HELLO_RESPONSE -> {
+                if (ClientConfigCache.restore(full, revision, configData)) {
+                    NetworkHandler.sendToServer(acknowledge(revision));
+                }
+            }
+            case FETCH_RESPONSE -> {
+                ClientConfigCache.merge(revision, configData);
+                if (Minecraft.getInstance().screen instanceof ConfigScreen screen) {
+                    screen.updateOriginal(configData);
+                }
+            }
+            case RESYNC_RESPONSE -> {
+                Screen screen = Minecraft.getInstance().screen;
+                if (screen instanceof ConfigScreen) {
+                    ((ConfigScreen) screen).updateConfig(configData);
+                }
             }
         }
     }
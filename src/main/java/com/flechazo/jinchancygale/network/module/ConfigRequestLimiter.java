@@ -0,0 +1,152 @@
+package com.flechazo.jinchancygale.network.module;
+
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.metrics.ConfigMetrics;
+import com.flechazo.jinchancygale.network.NetworkHandler;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounds the work inbound config packets can cause.
+ * Every player has a token bucket for config requests, and a separate larger one for acks and hellos,
+ * which arrive in bursts after pushes and must not starve an operator's update; updates are merged latest-wins and applied once per tick,
+ * and resync requests are answered once per tick from a cached response.
+ */
+public class ConfigRequestLimiter {
+    // a burst of 8 packets, then one every 250 ms
+    private static final double CAPACITY = 8;
+    private static final double REFILL_PER_NANO = 4 / 1e9;
+    // a burst of 64 acks or hellos, then 32 per second
+    private static final double CONTROL_CAPACITY = 64;
+    private static final double CONTROL_REFILL_PER_NANO = 32 / 1e9;
+
+    private static final Map<UUID, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private static final Map<UUID, TokenBucket> controlBuckets = new ConcurrentHashMap<>();
+    // only touched on the server thread
+    private static ConfigValues pendingUpdate = null;
+    private static final Map<UUID, ServerPlayer> pendingResync = new LinkedHashMap<>();
+    private static ConfigValues resyncSource = null;
+    private static ConfigPacket resyncResponse = null;
+
+    /**
+     * Take a token for an inbound config request: an update, resync or fetch.
+     *
+     * @return False if the player is over their rate and the packet should be dropped
+     */
+    public static boolean tryAcquire(ServerPlayer player) {
+        return tryAcquire(player.getUUID(), System.nanoTime());
+    }
+
+    /**
+     * Take a token for an inbound ack or hello, from a budget separate from requests.
+     *
+     * @return False if the player is over their rate and the packet should be dropped
+     */
+    public static boolean tryAcquireControl(ServerPlayer player) {
+        return tryAcquireControl(player.getUUID(), System.nanoTime());
+    }
+
+    static boolean tryAcquire(UUID id, long now) {
+        return tryAcquire(buckets.computeIfAbsent(id, uuid -> new TokenBucket(CAPACITY, REFILL_PER_NANO, now)), now);
+    }
+
+    static boolean tryAcquireControl(UUID id, long now) {
+        return tryAcquire(controlBuckets.computeIfAbsent(id, uuid -> new TokenBucket(CONTROL_CAPACITY, CONTROL_REFILL_PER_NANO, now)), now);
+    }
+
+    private static boolean tryAcquire(TokenBucket bucket, long now) {
+        if (bucket.tryAcquire(now)) return true;
+        ConfigMetrics.recordThrottled();
+        return false;
+    }
+
+    /**
+     * Queue an update to be applied at the end of the tick. Later values for the same key replace earlier ones.
+     */
+    public static void queueUpdate(ConfigValues update) {
+        if (pendingUpdate == null) {
+            pendingUpdate = update.copy();
+        } else {
+            ConfigMetrics.recordCoalesced();
+            pendingUpdate.putAll(update);
+        }
+    }
+
+    /**
+     * Queue a resync response; repeated requests within a tick are answered once.
+     */
+    public static void queueResync(ServerPlayer player) {
+        if (pendingResync.putIfAbsent(player.getUUID(), player) != null) ConfigMetrics.recordCoalesced();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        if (pendingUpdate != null) {
+            ConfigValues update = pendingUpdate;
+            pendingUpdate = null;
+            ConfigSyncTracker.broadcastChanges(ConfigManager.syncValue(update, true));
+        }
+        if (!pendingResync.isEmpty()) {
+            List<ServerPlayer> players = new ArrayList<>(pendingResync.values());
+            pendingResync.clear();
+            players.removeIf(ServerPlayer::hasDisconnected);
+            NetworkHandler.sendToPlayers(resyncResponse(), players);
+        }
+    }
+
+    private static ConfigPacket resyncResponse() {
+        ConfigValues defaults = ConfigManager.defaultValues();
+        if (resyncResponse == null || resyncSource != defaults) {
+            resyncSource = defaults;
+            resyncResponse = ConfigPacket.reSyncResponse(defaults);
+        }
+        return resyncResponse;
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        forget(event.getEntity().getUUID());
+    }
+
+    static void forget(UUID id) {
+        buckets.remove(id);
+        controlBuckets.remove(id);
+        pendingResync.remove(id);
+    }
+
+    static int tracked() {
+        return buckets.size() + controlBuckets.size();
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long last;
+
+        TokenBucket(double capacity, double refillPerNano, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.tokens = capacity;
+            this.last = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            // packets racing on netty threads may carry slightly older timestamps
+            if (now > last) {
+                tokens = Math.min(capacity, tokens + (now - last) * refillPerNano);
+                last = now;
+            }
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+    }
+}
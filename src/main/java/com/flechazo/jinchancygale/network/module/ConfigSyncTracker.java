@@ -0,0 +1,138 @@
+package com.flechazo.jinchancygale.network.module;
+
+import com.flechazo.jinchancygale.config.ConfigDigest;
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigOverlays;
+import com.flechazo.jinchancygale.config.ConfigRevisions;
+import com.flechazo.jinchancygale.config.ConfigSnapshot;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.metrics.ConfigMetrics;
+import com.flechazo.jinchancygale.network.NetworkHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the last config revision each client acknowledged, so syncs only carry what changed since.
+ * Every player is sent their resolved view, with dimension and permission level overlays applied.
+ */
+public class ConfigSyncTracker {
+    private static final Map<UUID, Long> acknowledged = new ConcurrentHashMap<>();
+
+    /**
+     * Build a sync packet for a player: a delta from their acknowledged revision,
+     * or an empty snapshot if they have none or the gap is too large; the screen then fetches what it shows.
+     */
+    public static ConfigPacket createSync(ServerPlayer player) {
+        long since = acknowledged(player.getUUID());
+        ConfigSnapshot global = ConfigManager.snapshot();
+        ConfigSnapshot snapshot = global.withValues(ConfigOverlays.resolve(global, player));
+        ConfigRevisions.Delta delta = ConfigManager.revisions().since(since, snapshot.revision());
+        if (delta.isFull() || delta.keys().size() > snapshot.schema().sharedSize() / 2) {
+            return ConfigPacket.createForSync(new ConfigValues(snapshot.schema()), delta.revision());
+        }
+        return ConfigPacket.createForDelta(snapshot.createSyncData(delta.keys()), since, delta.revision());
+    }
+
+    /**
+     * Answer a client that joined with a cached config: only the cached keys whose buckets differ from its digest,
+     * nothing if the cache is current, or an empty snapshot to fill on demand if it has no usable cache.
+     */
+    public static ConfigPacket createHelloResponse(ServerPlayer player, int[] digest, BitSet present) {
+        ConfigSnapshot global = ConfigManager.snapshot();
+        ConfigValues values = global.withValues(ConfigOverlays.resolve(global, player)).createSyncData(true);
+        ConfigValues changes = digest.length == 0 ? null : ConfigDigest.diff(values, present, digest);
+        if (changes == null) return ConfigPacket.helloResponse(true, new ConfigValues(global.schema()), global.revision());
+        return ConfigPacket.helloResponse(false, changes, global.revision());
+    }
+
+    /**
+     * Values of the requested screen scopes, from the player's resolved view.
+     *
+     * @param scopes {@code module:} or {@code category:} followed by a name
+     */
+    public static ConfigPacket createFetchResponse(ServerPlayer player, List<String> scopes) {
+        ConfigSnapshot global = ConfigManager.snapshot();
+        ConfigValues data = global.withValues(ConfigOverlays.resolve(global, player)).createScopeData(scopes);
+        return ConfigPacket.fetchResponse(data, global.revision());
+    }
+
+    /**
+     * Tell every operator about keys that just changed.
+     * Operators sharing a resolved view share one encoded packet.
+     *
+     * @param snapshot Snapshot produced by the batch, carrying the changed keys and their values
+     */
+    public static void broadcastChanges(ConfigSnapshot snapshot) {
+        if (snapshot.changed().isEmpty()) return;
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) return;
+        // resolved views are cached, so identity groups players seeing the same values
+        Map<ConfigValues, List<ServerPlayer>> views = new IdentityHashMap<>();
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            if (!player.hasPermissions(2)) continue;
+            views.computeIfAbsent(ConfigOverlays.resolve(snapshot, player), values -> new ArrayList<>()).add(player);
+        }
+        long revision = snapshot.revision();
+        int recipients = 0;
+        for (Map.Entry<ConfigValues, List<ServerPlayer>> view : views.entrySet()) {
+            ConfigValues data = snapshot.withValues(view.getKey()).createSyncData(snapshot.changed());
+            recipients += NetworkHandler.sendToPlayers(ConfigPacket.createForPush(data, revision - 1, revision), view.getValue());
+        }
+        ConfigMetrics.recordRecipients(recipients);
+    }
+
+    public static void acknowledge(ServerPlayer player, long revision) {
+        acknowledge(player.getUUID(), revision);
+    }
+
+    static void acknowledge(UUID id, long revision) {
+        if (revision < 0) {
+            acknowledged.remove(id);
+        } else {
+            acknowledged.put(id, revision);
+        }
+    }
+
+    /**
+     * @return Last revision the player acknowledged, or -1 if none
+     */
+    static long acknowledged(UUID id) {
+        return acknowledged.getOrDefault(id, -1L);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (!(event.getEntity() instanceof ServerPlayer player)) return;
+        Long revision = acknowledged.get(player.getUUID());
+        if (revision == null) return;
+        // keys overridden by either dimension may now resolve differently
+        Set<String> keys = new HashSet<>();
+        ConfigValues from = ConfigOverlays.dimensionOverlay(event.getFrom());
+        ConfigValues to = ConfigOverlays.dimensionOverlay(event.getTo());
+        if (from != null) keys.addAll(from.toMap().keySet());
+        if (to != null) keys.addAll(to.toMap().keySet());
+        if (keys.isEmpty()) return;
+        ConfigSnapshot global = ConfigManager.snapshot();
+        ConfigValues data = global.withValues(ConfigOverlays.resolve(global, player)).createSyncData(keys);
+        NetworkHandler.sendToClient(ConfigPacket.createForPush(data, revision, revision), player);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        forget(event.getEntity().getUUID());
+    }
+
+    static void forget(UUID id) {
+        acknowledged.remove(id);
+    }
+
+    static int tracked() {
+        return acknowledged.size();
+    }
+}
@@ -2,11 +2,18 @@ package com.flechazo.jinchancygale.util;
 
 import net.minecraftforge.fml.ModList;
 import net.minecraftforge.forgespi.language.IModFileInfo;
+import net.minecraftforge.forgespi.language.ModFileScanData;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.Type;
 
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ClassLoaderUtil {
@@ -18,14 +25,62 @@ public class ClassLoaderUtil {
                 .flatMap(file -> file.getScanResult().getClasses().stream())  // 获取所有类信息
                 .map(classData -> classData.clazz().getClassName())
                 .filter(className -> className.startsWith(packageName))
-                .map(className -> {
-                    try {
-                        return Class.forName(className, true, Thread.currentThread().getContextClassLoader());
-                    } catch (ClassNotFoundException e) {
-                        LOGGER.error("Class not found: {}", className);
-                        return null;
-                    }
-                })
+                .map(className -> loadClass(className, false))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find class names in a mod's own file from its scan data, without loading any class.
+     * A class matches when it carries the marker annotation or directly implements the target type.
+     *
+     * @param modId      Mod whose file is scanned
+     * @param marker     Class-level marker annotation
+     * @param targetType Interface implemented by the wanted classes
+     * @return Matching class names
+     */
+    public static Set<String> findClassNames(String modId, Class<? extends Annotation> marker, Class<?> targetType) {
+        IModFileInfo modFile = ModList.get().getModFileById(modId);
+        if (modFile == null) {
+            LOGGER.error("Mod file not found: {}", modId);
+            return Set.of();
+        }
+        ModFileScanData scanData = modFile.getFile().getScanResult();
+        Type markerType = Type.getType(marker);
+        Type interfaceType = Type.getType(targetType);
+
+        Set<String> names = new LinkedHashSet<>();
+        for (ModFileScanData.AnnotationData data : scanData.getAnnotations()) {
+            if (data.targetType() == ElementType.TYPE && markerType.equals(data.annotationType())) {
+                names.add(data.clazz().getClassName());
+            }
+        }
+        for (ModFileScanData.ClassData data : scanData.getClasses()) {
+            if (data.interfaces().contains(interfaceType)) {
+                names.add(data.clazz().getClassName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Instantiate the classes of a mod that match {@link #findClassNames}.
+     * Only matching classes are loaded and initialized.
+     */
+    public static <T> List<T> loadClasses(String modId, Class<? extends Annotation> marker, Class<T> targetType) {
+        return loadClasses(modId, marker, targetType, clazz -> true);
+    }
+
+    /**
+     * Instantiate the classes of a mod that match {@link #findClassNames} and a filter.
+     * Classes are tested before they are initialized, so rejected ones never run their static initializers.
+     */
+    public static <T> List<T> loadClasses(String modId, Class<? extends Annotation> marker, Class<T> targetType, Predicate<Class<?>> filter) {
+        return findClassNames(modId, marker, targetType).stream()
+                .map(className -> loadClass(className, false))
+                .filter(Objects::nonNull)
+                .filter(filter)
+                .map(clazz -> instantiate(clazz, targetType))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
@@ -33,24 +88,30 @@ public class ClassLoaderUtil {
     public static <T> List<T> loadClasses(String packageName, Class<T> targetType) {
         List<Class<?>> classes = getClassesInPackage(packageName);
         return classes.stream()
-                .filter(clazz -> {
-                    try {
-                        return targetType.isAssignableFrom(clazz) &&
-                                !clazz.isInterface() &&
-                                !java.lang.reflect.Modifier.isAbstract(clazz.getModifiers());
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .map(clazz -> {
-                    try {
-                        return targetType.cast(clazz.getDeclaredConstructor().newInstance());
-                    } catch (Exception e) {
-                        LOGGER.error("Failed to instantiate {}: {}", clazz.getName(), e.getMessage());
-                        return null;
-                    }
-                })
+                .map(clazz -> instantiate(clazz, targetType))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
+
+    private static Class<?> loadClass(String className, boolean initialize) {
+        try {
+            return Class.forName(className, initialize, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            LOGGER.error("Class not found: {}", className);
+            return null;
+        }
+    }
+
+    private static <T> T instantiate(Class<?> clazz, Class<T> targetType) {
+        if (!targetType.isAssignableFrom(clazz) || clazz.isInterface() ||
+                java.lang.reflect.Modifier.isAbstract(clazz.getModifiers())) {
+            return null;
+        }
+        try {
+            return targetType.cast(clazz.getDeclaredConstructor().newInstance());
+        } catch (Exception e) {
+            LOGGER.error("Failed to instantiate {}: {}", clazz.getName(), e.getMessage());
+            return null;
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.flechazo.jinchancygale.client.gui;
+
+import com.flechazo.jinchancygale.config.ConfigEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConfigSearchIndexTest {
+    private static final List<String> NAMES = List.of("spawnRate", "spawnLimit", "spawner", "speed", "maxSpeed");
+
+    @Test
+    void extendingPrefixNarrowsCachedMatches() {
+        ConfigSearchIndex index = index();
+        // each step extends the previous term, which is then served from or narrowed from the cache
+        assertEquals(positions(0, 1, 2, 3, 4), index.search("s"));
+        assertEquals(positions(0, 1, 2, 3, 4), index.search("sp"));
+        assertEquals(positions(0, 1, 2), index.search("spa"));
+        assertEquals(positions(0, 1, 2), index.search("spawn"));
+        assertEquals(positions(2), index.search("spawne"));
+        assertEquals(positions(), index.search("spawnx"));
+        assertEquals(positions(), index.search("spawnxy"));
+        assertEquals(positions(3, 4), index.search("spe"));
+    }
+
+    @Test
+    void termsIntersect() {
+        ConfigSearchIndex index = index();
+        assertEquals(positions(0), index.search("spawn rate"));
+        assertEquals(positions(4), index.search("max sp"));
+        assertEquals(positions(0, 1, 2, 3, 4), index.search(" "));
+    }
+
+    private static ConfigSearchIndex index() {
+        List<ConfigEntry> entries = new ArrayList<>();
+        for (int i = 0; i < NAMES.size(); i++) {
+            entries.add(new ConfigEntry(i, NAMES.get(i), "test", List.of(), "", int.class, null, null, true, false, null, null, null));
+        }
+        return new ConfigSearchIndex(entries, NAMES);
+    }
+
+    private static BitSet positions(int... positions) {
+        BitSet set = new BitSet();
+        for (int position : positions) {
+            set.set(position);
+        }
+        return set;
+    }
+}
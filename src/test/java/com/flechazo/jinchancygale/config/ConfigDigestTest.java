@@ -0,0 +1,43 @@
+package com.flechazo.jinchancygale.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigDigestTest {
+    private static final int SHARED = 100;
+
+    @Test
+    void localKeysDoNotChangeTheDigest() {
+        // client and server each have local keys the other side lacks
+        ConfigValues client = fill(new ConfigValues(schema(20)));
+        ConfigValues server = fill(new ConfigValues(schema(45)));
+        int[] digest = ConfigDigest.of(client);
+        assertArrayEquals(ConfigDigest.of(server), digest);
+
+        ConfigValues diff = ConfigDigest.diff(server, client.presentIds(), digest);
+        assertNotNull(diff);
+        assertTrue(diff.isEmpty());
+
+        server.setInt(70, -1);
+        diff = ConfigDigest.diff(server, client.presentIds(), digest);
+        assertNotNull(diff);
+        assertEquals(ConfigDigest.BUCKET_SIZE, diff.size()); // the bucket holding key 70
+        assertTrue(diff.has(70));
+    }
+
+    private static ConfigSchema schema(int local) {
+        Class<?>[] types = new Class<?>[SHARED + local];
+        Arrays.fill(types, int.class);
+        return TestSchemas.withLocal(SHARED, types);
+    }
+
+    private static ConfigValues fill(ConfigValues values) {
+        for (int id = 0; id < values.schema().size(); id++) {
+            values.setInt(id, id < SHARED ? id : -id);
+        }
+        return values;
+    }
+}
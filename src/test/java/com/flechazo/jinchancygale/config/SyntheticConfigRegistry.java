@@ -0,0 +1,76 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registry of generated keys backed by plain arrays, so the config paths can run without Minecraft or a mod scan.
+ * Keys cycle through int, double, boolean, String and long; every other numeric key is ranged.
+ * Shared by the tests and the jmh benchmarks.
+ */
+public class SyntheticConfigRegistry implements ConfigRegistry {
+    private static final ConfigModule MODULE = () -> "Synthetic";
+
+    private final int[] ints;
+    private final long[] longs;
+    private final double[] doubles;
+    private final boolean[] booleans;
+    private final String[] strings;
+    private final List<ConfigDefinition> definitions;
+
+    public SyntheticConfigRegistry(int size) {
+        this.ints = new int[size];
+        this.longs = new long[size];
+        this.doubles = new double[size];
+        this.booleans = new boolean[size];
+        this.strings = new String[size];
+        this.definitions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            definitions.add(define(i));
+        }
+    }
+
+    /**
+     * @return Name of key i, which sorts to id i; {@code i % 5} picks its type in the order above
+     */
+    public static String key(int i) {
+        return String.format("key%05d", i);
+    }
+
+    private ConfigDefinition define(int i) {
+        String name = key(i);
+        boolean ranged = (i / 5) % 2 == 0;
+        return switch (i % 5) {
+            case 0 -> {
+                ints[i] = i % 1000;
+                yield new ConfigDefinition(MODULE, List.of(), name, name, "int " + i, int.class, ranged ? 0 : null, ranged ? 1000 : null, true, false,
+                        ConfigAccessor.ofInt(name, () -> ints[i], value -> ints[i] = value));
+            }
+            case 1 -> {
+                doubles[i] = i / 100.0;
+                yield new ConfigDefinition(MODULE, List.of(), name, name, "double " + i, double.class, ranged ? 0.0 : null, ranged ? 1000.0 : null, true, false,
+                        ConfigAccessor.ofDouble(name, () -> doubles[i], value -> doubles[i] = value));
+            }
+            case 2 -> {
+                booleans[i] = i % 3 == 0;
+                yield new ConfigDefinition(MODULE, List.of(), name, name, "boolean " + i, boolean.class, null, null, true, false,
+                        ConfigAccessor.ofBoolean(name, () -> booleans[i], value -> booleans[i] = value));
+            }
+            case 3 -> {
+                strings[i] = "value" + i;
+                yield new ConfigDefinition(MODULE, List.of(), name, name, "string " + i, String.class, null, null, i % 8 != 3, false,
+                        ConfigAccessor.ofObject(name, String.class, () -> strings[i], value -> strings[i] = (String) value));
+            }
+            default -> {
+                longs[i] = i * 1_000_000_000L;
+                yield new ConfigDefinition(MODULE, List.of(), name, name, "long " + i, long.class, ranged ? 0L : null, ranged ? Long.MAX_VALUE : null, true, false,
+                        ConfigAccessor.ofLong(name, () -> longs[i], value -> longs[i] = value));
+            }
+        };
+    }
+
+    @Override
+    public List<ConfigDefinition> definitions() {
+        return definitions;
+    }
+}
@@ -0,0 +1,32 @@
+package com.flechazo.jinchancygale.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schemas for tests, without config fields or a loaded spec behind them.
+ */
+public final class TestSchemas {
+    private TestSchemas() {
+    }
+
+    /**
+     * @param types Type of each key; key i is named so that it sorts to id i
+     */
+    public static ConfigSchema of(Class<?>... types) {
+        return withLocal(types.length, types);
+    }
+
+    /**
+     * @param shared Number of shared keys; the keys after them are local, as a one-sided module's would be
+     * @param types  Type of each key; key i is named so that it sorts to id i
+     */
+    public static ConfigSchema withLocal(int shared, Class<?>... types) {
+        List<ConfigEntry> entries = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            entries.add(new ConfigEntry(i, String.format("key%05d", i), "test", List.of(), "", types[i],
+                    null, null, true, i >= shared, null, null, null));
+        }
+        return new ConfigSchema(entries);
+    }
+}
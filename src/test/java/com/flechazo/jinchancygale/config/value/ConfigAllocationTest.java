@@ -0,0 +1,76 @@
+package com.flechazo.jinchancygale.config.value;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.flechazo.jinchancygale.config.ConfigEntry;
+import com.flechazo.jinchancygale.config.ConfigManager;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.config.SyntheticConfigRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Typed reads and slot copies must not box. A boxed value costs at least 16 bytes,
+ * so staying below one byte per operation leaves room for measurement noise while catching any boxing.
+ */
+class ConfigAllocationTest {
+    private static final int KEYS = 1000;
+    private static final int ITERATIONS = 100_000;
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static IntConfig intHandle;
+    private static LongConfig longHandle;
+    private static DoubleConfig doubleHandle;
+    private static BooleanConfig booleanHandle;
+    // keeps the reads from being optimized away
+    private static long sink;
+
+    @BeforeAll
+    static void init() {
+        ConfigManager.init(new SyntheticConfigRegistry(KEYS)).acceptConfig(CommentedConfig.inMemory());
+        ConfigManager.load();
+        intHandle = IntConfig.of(SyntheticConfigRegistry.key(0));
+        doubleHandle = DoubleConfig.of(SyntheticConfigRegistry.key(1));
+        booleanHandle = BooleanConfig.of(SyntheticConfigRegistry.key(2));
+        longHandle = LongConfig.of(SyntheticConfigRegistry.key(4));
+    }
+
+    @Test
+    void typedReadsDoNotAllocate() {
+        Runnable reads = () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += intHandle.getAsInt() + longHandle.getAsLong() + (long) doubleHandle.getAsDouble() + (booleanHandle.getAsBoolean() ? 1 : 0);
+            }
+        };
+        long allocated = allocatedBytes(reads);
+        assertTrue(allocated < ITERATIONS, "typed reads allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void slotSyncDoesNotAllocate() {
+        ConfigValues current = ConfigManager.values().copy();
+        ConfigValues next = current.copy();
+        Runnable sync = () -> {
+            for (int i = 0; i < ITERATIONS / KEYS; i++) {
+                for (ConfigEntry entry : ConfigManager.schema().entries()) {
+                    // the per-key work of syncValue and createSyncData: slot to field and back
+                    entry.accessor().restore(current, entry.id());
+                    entry.accessor().store(next, entry.id());
+                }
+                next.putAll(current);
+            }
+        };
+        long allocated = allocatedBytes(sync);
+        assertTrue(allocated < ITERATIONS, "slot sync allocated " + allocated + " bytes");
+    }
+
+    private static long allocatedBytes(Runnable task) {
+        task.run(); // warm up, class loading and first calls are not counted
+        long start = THREADS.getCurrentThreadAllocatedBytes();
+        task.run();
+        return THREADS.getCurrentThreadAllocatedBytes() - start;
+    }
+}
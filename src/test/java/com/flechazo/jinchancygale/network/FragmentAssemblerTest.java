@@ -0,0 +1,42 @@
+package com.flechazo.jinchancygale.network;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentAssemblerTest {
+    @Test
+    void reassemblesInAnyOrder() {
+        FragmentAssembler assembler = new FragmentAssembler();
+        Object connection = new Object();
+        assertNull(assembler.accept(connection, 1, 1, 2, new byte[]{3, 4}));
+        ByteBuf body = assembler.accept(connection, 1, 0, 2, new byte[]{1, 2});
+        assertNotNull(body);
+        assertEquals(4, body.readableBytes());
+        assertEquals(1, body.getByte(0));
+        assertEquals(4, body.getByte(3));
+    }
+
+    @Test
+    void oneConnectionCannotTakeAnotherConnectionsStreams() {
+        FragmentAssembler assembler = new FragmentAssembler();
+        Object flooder = new Object();
+        for (int stream = 0; stream < 100; stream++) {
+            assembler.accept(flooder, stream, 0, 2, new byte[1]);
+        }
+        Object other = new Object();
+        assertNull(assembler.accept(other, 0, 0, 2, new byte[1]));
+        assertNotNull(assembler.accept(other, 0, 1, 2, new byte[1]));
+    }
+
+    @Test
+    void removedConnectionLosesItsStreams() {
+        FragmentAssembler assembler = new FragmentAssembler();
+        Object connection = new Object();
+        assertNull(assembler.accept(connection, 0, 0, 2, new byte[1]));
+        assembler.remove(connection);
+        // the first half is gone, so the second starts a new stream
+        assertNull(assembler.accept(connection, 0, 1, 2, new byte[1]));
+    }
+}
@@ -0,0 +1,79 @@
+package com.flechazo.jinchancygale.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.FriendlyByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PacketFramesTest {
+    @Test
+    void compressedBodyInflatesIntoReleasedBuffer() {
+        ByteBuf encoded = PacketFrames.encodeBody(3, buf -> {
+            for (int i = 0; i < 4096; i++) {
+                buf.writeByte(i % 7);
+            }
+        });
+        try {
+            PacketFrames.Body body = PacketFrames.readBody(new FriendlyByteBuf(encoded));
+            assertEquals(3, body.index());
+            assertTrue(body.owned());
+            assertEquals(4096, body.payload().readableBytes());
+            for (int i = 0; i < 4096; i++) {
+                assertEquals(i % 7, body.payload().readByte());
+            }
+            body.release();
+            assertEquals(0, body.payload().refCnt());
+        } finally {
+            encoded.release();
+        }
+    }
+
+    @Test
+    void rawBodyIsAViewOfTheFrame() {
+        ByteBuf encoded = PacketFrames.encodeBody(1, buf -> buf.writeInt(42));
+        try {
+            PacketFrames.Body body = PacketFrames.readBody(new FriendlyByteBuf(encoded));
+            assertFalse(body.owned());
+            assertEquals(42, body.payload().readInt());
+            body.release();
+            assertEquals(1, encoded.refCnt());
+        } finally {
+            encoded.release();
+        }
+    }
+
+    @Test
+    void largeBodySplitsAndReassembles() {
+        ByteBuf encoded = PacketFrames.encodeBody(0, buf -> {
+            // random-looking bytes stay raw, so the body needs several fragments
+            long seed = 1;
+            for (int i = 0; i < 100_000; i++) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                buf.writeByte((int) (seed >>> 56));
+            }
+        });
+        try {
+            List<byte[]> frames = PacketFrames.split(encoded, 5);
+            assertTrue(frames.size() > 1);
+            FragmentAssembler assembler = new FragmentAssembler();
+            ByteBuf body = null;
+            for (byte[] frame : frames) {
+                FriendlyByteBuf buf = new FriendlyByteBuf(io.netty.buffer.Unpooled.wrappedBuffer(frame));
+                assertEquals(PacketFrames.FRAGMENT, buf.readByte());
+                int stream = buf.readVarInt();
+                int index = buf.readVarInt();
+                int count = buf.readVarInt();
+                byte[] chunk = new byte[buf.readableBytes()];
+                buf.readBytes(chunk);
+                body = assembler.accept(this, stream, index, count, chunk);
+            }
+            assertNotNull(body);
+            assertEquals(encoded, body);
+        } finally {
+            encoded.release();
+        }
+    }
+}
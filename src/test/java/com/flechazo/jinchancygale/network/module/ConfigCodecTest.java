@@ -0,0 +1,87 @@
+package com.flechazo.jinchancygale.network.module;
+
+import com.flechazo.jinchancygale.config.ConfigSchema;
+import com.flechazo.jinchancygale.config.ConfigValues;
+import com.flechazo.jinchancygale.config.TestSchemas;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigCodecTest {
+    private final ConfigSchema schema = TestSchemas.of(boolean.class, int.class, long.class, double.class, String.class);
+
+    @Test
+    void roundTrip() {
+        ConfigValues values = new ConfigValues(schema);
+        values.setBoolean(0, true);
+        values.setInt(1, -7);
+        values.setLong(2, Long.MIN_VALUE);
+        values.setDouble(3, 0.25);
+        values.setString(4, "minecraft:stone");
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ConfigCodec.encode(buf, values);
+
+        ConfigValues decoded = new ConfigValues(schema);
+        assertTrue(ConfigCodec.decode(buf, decoded));
+        assertFalse(buf.isReadable());
+        for (int id = 0; id < schema.size(); id++) {
+            assertTrue(decoded.sameValue(id, values), schema.get(id).name());
+        }
+    }
+
+    @Test
+    void skipsLocalKeys() {
+        // a one-sided module on this side only, the other side has a different local key
+        ConfigSchema local = TestSchemas.withLocal(2, boolean.class, int.class, boolean.class, String.class);
+        ConfigSchema remote = TestSchemas.withLocal(2, boolean.class, int.class, long.class);
+        ConfigValues values = new ConfigValues(local);
+        values.setBoolean(0, true);
+        values.setInt(1, 12);
+        values.setBoolean(2, true);
+        values.setString(3, "client only");
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ConfigCodec.encode(buf, values);
+
+        ConfigValues decoded = new ConfigValues(remote);
+        assertTrue(ConfigCodec.decode(buf, decoded));
+        assertFalse(buf.isReadable());
+        assertEquals(2, decoded.size());
+        assertTrue(decoded.getBoolean(0));
+        assertEquals(12, decoded.getInt(1));
+        assertFalse(decoded.has(2));
+    }
+
+    @Test
+    void rejectsForgedBooleanCount() {
+        FriendlyByteBuf buf = header();
+        buf.writeVarInt(Integer.MAX_VALUE);
+        assertThrows(IllegalStateException.class, () -> ConfigCodec.decode(buf, new ConfigValues(schema)));
+    }
+
+    @Test
+    void rejectsNegativeBooleanCount() {
+        FriendlyByteBuf buf = header();
+        buf.writeVarInt(-1);
+        assertThrows(IllegalStateException.class, () -> ConfigCodec.decode(buf, new ConfigValues(schema)));
+    }
+
+    @Test
+    void rejectsForgedValueCount() {
+        FriendlyByteBuf buf = header();
+        buf.writeVarInt(0);
+        buf.writeBitSet(new BitSet());
+        buf.writeVarInt(Integer.MAX_VALUE);
+        assertThrows(IllegalStateException.class, () -> ConfigCodec.decode(buf, new ConfigValues(schema)));
+    }
+
+    private FriendlyByteBuf header() {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        buf.writeVarInt(ConfigCodec.VERSION);
+        buf.writeInt(schema.hash());
+        return buf;
+    }
+}
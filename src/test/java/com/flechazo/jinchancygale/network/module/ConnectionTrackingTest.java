@@ -0,0 +1,109 @@
+package com.flechazo.jinchancygale.network.module;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-connection state under a few hundred simulated connections sending at once from several threads,
+ * as packets do from netty threads.
+ */
+class ConnectionTrackingTest {
+    private static final int CONNECTIONS = 300;
+    private static final int PACKETS = 20;
+    private static final int BURST = 8;
+
+    @Test
+    void limiterBucketsAreIndependentPerConnection() throws Exception {
+        List<UUID> ids = ids();
+        long now = System.nanoTime();
+        AtomicIntegerArray accepted = new AtomicIntegerArray(CONNECTIONS);
+        runConcurrently(i -> {
+            for (int p = 0; p < PACKETS; p++) {
+                if (ConfigRequestLimiter.tryAcquire(ids.get(i), now)) accepted.incrementAndGet(i);
+            }
+        });
+        for (int i = 0; i < CONNECTIONS; i++) {
+            assertEquals(BURST, accepted.get(i), "connection " + i);
+        }
+        // a quarter second later every connection has exactly one token again
+        for (UUID id : ids) {
+            assertTrue(ConfigRequestLimiter.tryAcquire(id, now + 250_000_000L));
+            assertFalse(ConfigRequestLimiter.tryAcquire(id, now + 250_000_000L));
+        }
+        ids.forEach(ConfigRequestLimiter::forget);
+        assertEquals(0, ConfigRequestLimiter.tracked());
+    }
+
+    @Test
+    void acksDoNotDrainTheRequestBudget() {
+        UUID id = UUID.randomUUID();
+        long now = System.nanoTime();
+        // a client acking a burst of pushes
+        for (int i = 0; i < 32; i++) {
+            assertTrue(ConfigRequestLimiter.tryAcquireControl(id, now));
+        }
+        assertTrue(ConfigRequestLimiter.tryAcquire(id, now));
+        ConfigRequestLimiter.forget(id);
+        assertEquals(0, ConfigRequestLimiter.tracked());
+    }
+
+    @Test
+    void acknowledgementsAreTrackedPerConnection() throws Exception {
+        List<UUID> ids = ids();
+        runConcurrently(i -> {
+            for (int revision = 0; revision <= i; revision++) {
+                ConfigSyncTracker.acknowledge(ids.get(i), revision);
+            }
+        });
+        for (int i = 0; i < CONNECTIONS; i++) {
+            assertEquals(i, ConfigSyncTracker.acknowledged(ids.get(i)), "connection " + i);
+        }
+        assertEquals(CONNECTIONS, ConfigSyncTracker.tracked());
+        // a client that dropped its cache resets to no revision
+        ConfigSyncTracker.acknowledge(ids.get(0), -1);
+        assertEquals(-1, ConfigSyncTracker.acknowledged(ids.get(0)));
+        ids.forEach(ConfigSyncTracker::forget);
+        assertEquals(0, ConfigSyncTracker.tracked());
+    }
+
+    private static List<UUID> ids() {
+        List<UUID> ids = new ArrayList<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        return ids;
+    }
+
+    private interface Connection {
+        void run(int index);
+    }
+
+    private static void runConcurrently(Connection connection) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(CONNECTIONS);
+            for (int i = 0; i < CONNECTIONS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    connection.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}